@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Compares time from launch to the first driver.get for the plain shaded jar
+# against the jlink runtime with and without the AppCDS archive.
+#
+# Build first:  mvn -Paot package
+# Usage:        scripts/startup-bench.sh [runs]   (default: 5)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-5}"
+JAR="target/crunchyroll-history-scraper-1.0.0.jar"
+RUNTIME="target/runtime/bin/java"
+ARCHIVE="target/app-cds.jsa"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+for f in "$JAR" "$RUNTIME" "$ARCHIVE"; do
+    if [ ! -e "$f" ]; then
+        echo "Missing $f - run: mvn -Paot package" >&2
+        exit 1
+    fi
+done
+
+# Prints "first_get_ms first_load_ms" as the median over all runs
+bench() {
+    local gets=() loads=()
+    for _ in $(seq "$RUNS"); do
+        local line
+        line=$("$@" -jar "$JAR" --startup-probe 2>/dev/null | grep '^startup-probe ')
+        gets+=("$(sed -E 's/.*first_get_ms=([0-9]+).*/\1/' <<<"$line")")
+        loads+=("$(sed -E 's/.*first_load_ms=([0-9]+).*/\1/' <<<"$line")")
+    done
+    local mid=$(( (RUNS + 1) / 2 ))
+    echo "$(printf '%s\n' "${gets[@]}" | sort -n | sed -n "${mid}p") $(printf '%s\n' "${loads[@]}" | sort -n | sed -n "${mid}p")"
+}
+
+printf '%-24s %14s %15s\n' "Variant" "first_get_ms" "first_load_ms"
+read -r get load <<<"$(bench "$JAVA")"
+printf '%-24s %14s %15s\n' "plain jar" "$get" "$load"
+read -r get load <<<"$(bench "$RUNTIME" -Xshare:auto)"
+printf '%-24s %14s %15s\n' "jlink runtime" "$get" "$load"
+read -r get load <<<"$(bench "$RUNTIME" -XX:SharedArchiveFile="$ARCHIVE")"
+printf '%-24s %14s %15s\n' "jlink runtime + AppCDS" "$get" "$load"
@@ -3,27 +3,65 @@ package com.crunchyroll.scraper;
 import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.WebSocket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.time.Duration;
+import java.util.Map;
 
 /**
- * Manages browser/WebDriver lifecycle.
+ * Manages browser/WebDriver lifecycle. With -Dgrid.nodes set, Chrome runs on the least
+ * loaded remote endpoint of the shared {@link GridNodePool} instead of locally.
  */
 public class BrowserManager implements AutoCloseable {
     private static final Logger LOG = LoggerFactory.getLogger(BrowserManager.class);
     public static final int DEFAULT_DEBUG_PORT = 9222;
+    public static final int DEFAULT_GRID_SESSION_SECONDS = 300;
 
     private WebDriver driver;
     private final boolean headless;
     private boolean isManualMode = false;
+    private final ResourceBlocker.Policy blockingPolicy;
+    private DevTools devTools;
+    private ResourceBlocker resourceBlocker;
+    private final GridNodePool gridPool;
+    private GridNodePool.Lease gridLease;
+    private final ScrapeBudget budget = ScrapeBudget.fromSystemProperties();
+    private final Duration commandTimeout = budget.commandTimeout();
 
     public BrowserManager(boolean headless) {
+        this(headless, ResourceBlocker.Policy.none());
+    }
+
+    public BrowserManager(boolean headless, ResourceBlocker.Policy blockingPolicy) {
+        this(headless, blockingPolicy, GridNodePool.shared());
+    }
+
+    /**
+     * @param gridPool remote endpoints for {@link #initChrome()}, or null for a local browser
+     */
+    public BrowserManager(boolean headless, ResourceBlocker.Policy blockingPolicy, GridNodePool gridPool) {
         this.headless = headless;
+        this.blockingPolicy = blockingPolicy;
+        this.gridPool = gridPool;
     }
 
     /**
@@ -37,7 +75,7 @@ public class BrowserManager implements AutoCloseable {
         ChromeOptions options = new ChromeOptions();
         options.setExperimentalOption("debuggerAddress", "localhost:" + debugPort);
 
-        driver = new ChromeDriver(options);
+        driver = newChromeDriver(options);
         configureTimeouts();
         isManualMode = true;
 
@@ -50,9 +88,99 @@ public class BrowserManager implements AutoCloseable {
     }
 
     public WebDriver initChrome() {
+        if (gridPool != null) {
+            return initRemoteChrome();
+        }
         LOG.info("Setting up Chrome WebDriver...");
         WebDriverManager.chromedriver().setup();
 
+        driver = newChromeDriver(chromeOptions());
+        afterChromeStarted();
+
+        LOG.info("Chrome WebDriver initialized successfully");
+        return driver;
+    }
+
+    /**
+     * Starts Chrome on a remote endpoint from the grid pool. The driver is augmented so
+     * DevTools features (resource blocking, network capture) work through the endpoint.
+     */
+    public WebDriver initRemoteChrome() {
+        GridNodePool.Lease lease = gridPool.acquire();
+        LOG.info("Starting remote Chrome on {}...", lease.uri());
+        try {
+            Duration sessionTimeout = budget.cap(Duration.ofSeconds(Long.parseLong(
+                    System.getProperty("grid.session.seconds", String.valueOf(DEFAULT_GRID_SESSION_SECONDS)))));
+            RemoteWebDriver remote = new RemoteWebDriver(
+                    remoteExecutor(lease.uri().toURL(), commandTimeout, sessionTimeout), chromeOptions());
+            driver = new Augmenter().augment(remote);
+        } catch (MalformedURLException | RuntimeException e) {
+            lease.close();
+            throw new IllegalStateException("Could not start remote Chrome on " + lease.uri() + ": " + e.getMessage(), e);
+        }
+        gridLease = lease;
+        afterChromeStarted();
+
+        LOG.info("Remote Chrome WebDriver initialized successfully");
+        return driver;
+    }
+
+    /**
+     * With -Dbudget.command.seconds (or a total budget) every WebDriver command gets that
+     * read timeout, so a hung browser cannot stall the run past its budget.
+     */
+    private ChromeDriver newChromeDriver(ChromeOptions options) {
+        if (commandTimeout == null) {
+            return new ChromeDriver(options);
+        }
+        return new ChromeDriver(ChromeDriverService.createDefaultService(), options, clientConfig());
+    }
+
+    private ClientConfig clientConfig() {
+        return ClientConfig.defaultConfig().readTimeout(commandTimeout);
+    }
+
+    /**
+     * Executor for a remote endpoint. A Grid holds new-session requests in its queue while
+     * every slot is busy, so those get their own read timeout instead of the command timeout.
+     *
+     * @param commandTimeout read timeout for commands, or null for Selenium's default
+     * @param sessionTimeout read timeout for creating the session
+     */
+    static HttpCommandExecutor remoteExecutor(URL url, Duration commandTimeout, Duration sessionTimeout) {
+        ClientConfig config = ClientConfig.defaultConfig().baseUrl(url);
+        if (commandTimeout != null) {
+            config = config.readTimeout(commandTimeout);
+        }
+        Duration newSession = sessionTimeout.isZero() ? Duration.ofSeconds(1) : sessionTimeout;
+        HttpClient.Factory factory = HttpClient.Factory.createDefault();
+        return new HttpCommandExecutor(Map.of(), config, clientConfig -> new NewSessionAwareClient(
+                factory.createClient(clientConfig), factory.createClient(clientConfig.readTimeout(newSession))));
+    }
+
+    /**
+     * Sends POST /session through a client with a longer read timeout, everything else through the default one.
+     */
+    private record NewSessionAwareClient(HttpClient commands, HttpClient newSession) implements HttpClient {
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            boolean create = request.getMethod() == HttpMethod.POST && request.getUri().endsWith("/session");
+            return (create ? newSession : commands).execute(request);
+        }
+
+        @Override
+        public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+            return commands.openSocket(request, listener);
+        }
+
+        @Override
+        public void close() {
+            commands.close();
+            newSession.close();
+        }
+    }
+
+    private ChromeOptions chromeOptions() {
         ChromeOptions options = new ChromeOptions();
         if (headless) {
             options.addArguments("--headless=new");
@@ -83,8 +211,10 @@ public class BrowserManager implements AutoCloseable {
         prefs.put("credentials_enable_service", false);
         prefs.put("profile.password_manager_enabled", false);
         options.setExperimentalOption("prefs", prefs);
+        return options;
+    }
 
-        driver = new ChromeDriver(options);
+    private void afterChromeStarted() {
         configureTimeouts();
 
         // Execute script to mask webdriver
@@ -96,8 +226,13 @@ public class BrowserManager implements AutoCloseable {
             LOG.debug("Could not mask webdriver property: {}", e.getMessage());
         }
 
-        LOG.info("Chrome WebDriver initialized successfully");
-        return driver;
+        if (blockingPolicy.isEnabled()) {
+            try {
+                resourceBlocker = ResourceBlocker.attach(getDevTools(), blockingPolicy);
+            } catch (Exception e) {
+                LOG.warn("Could not enable resource blocking: {}", e.getMessage());
+            }
+        }
     }
 
     public WebDriver initFirefox() {
@@ -111,7 +246,9 @@ public class BrowserManager implements AutoCloseable {
         options.addArguments("--width=1920");
         options.addArguments("--height=1080");
 
-        driver = new FirefoxDriver(options);
+        driver = commandTimeout == null
+                ? new FirefoxDriver(options)
+                : new FirefoxDriver(GeckoDriverService.createDefaultService(), options, clientConfig());
         configureTimeouts();
 
         LOG.info("Firefox WebDriver initialized successfully");
@@ -128,8 +265,37 @@ public class BrowserManager implements AutoCloseable {
         return driver;
     }
 
+    /**
+     * Returns the DevTools session for the current Chrome driver, creating it on first use.
+     */
+    public DevTools getDevTools() {
+        if (devTools == null) {
+            devTools = devToolsFor(driver);
+        }
+        return devTools;
+    }
+
+    /**
+     * Returns the shared DevTools session of a driver, creating the session if needed.
+     */
+    public static DevTools devToolsFor(WebDriver driver) {
+        if (!(driver instanceof HasDevTools)) {
+            throw new IllegalStateException("DevTools is not available for " + driver.getClass().getSimpleName());
+        }
+        DevTools devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        return devTools;
+    }
+
+    public ResourceBlocker getResourceBlocker() {
+        return resourceBlocker;
+    }
+
     @Override
     public void close() {
+        if (resourceBlocker != null) {
+            resourceBlocker.close();
+        }
         if (driver != null) {
             if (isManualMode) {
                 LOG.info("Manual mode: leaving browser open for user");
@@ -142,5 +308,8 @@ public class BrowserManager implements AutoCloseable {
                 }
             }
         }
+        if (gridLease != null) {
+            gridLease.close();
+        }
     }
 }
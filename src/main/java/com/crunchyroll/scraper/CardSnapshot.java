@@ -0,0 +1,225 @@
+package com.crunchyroll.scraper;
+
+import java.util.Map;
+
+/**
+ * Raw text read from a single history card in one browser round trip.
+ * Normalizing it into a {@link HistoryEntry} happens off the browser thread.
+ */
+public record CardSnapshot(
+        String url,
+        String seriesTitle,
+        String episodeTitle,
+        String metaText,
+        String progressStyle,
+        String dateText,
+        String dateAttr,
+        String fullText
+) {
+    /**
+     * Shared page-side helpers: findCards() returns the unpruned cards of the first card
+     * selector with matches, extract() reads the raw fields of one card and hollow()
+     * prunes it (see {@link DomPruner}). Expects the selector lists in
+     * cardSels, seriesSels, episodeSels, metaSels, progressSels and dateSels, and the
+     * {@link HistoryField} names to extract in fields; lookups for other fields are skipped.
+     */
+    private static final String EXTRACT_FUNCTIONS = DomPruner.HOLLOW_FUNCTION + """
+            const findCards = () => {
+              for (const sel of cardSels) {
+                let cards = [];
+                try { cards = Array.from(document.querySelectorAll(sel)); } catch (e) { cards = []; }
+                if (cards.length > 0) return cards.filter(c => !c.hasAttribute('data-cr-pruned'));
+              }
+              return [];
+            };
+            const text = el => (el.innerText || '').trim();
+            const firstText = (card, sels) => {
+              for (const sel of sels) {
+                const el = card.querySelector(sel);
+                if (el && text(el)) return text(el);
+              }
+              return null;
+            };
+            const firstEl = (card, sels) => {
+              for (const sel of sels) {
+                const el = card.querySelector(sel);
+                if (el) return el;
+              }
+              return null;
+            };
+            const want = new Set(fields);
+            const extract = card => {
+              let url = null;
+              if (card.tagName.toLowerCase() === 'a') {
+                url = card.href;
+              } else {
+                const link = card.querySelector("a[href*='/watch/']");
+                if (link) url = link.href;
+              }
+              const series = want.has('SERIES') ? firstText(card, seriesSels) : null;
+              const episode = want.has('EPISODE') ? firstText(card, episodeSels) : null;
+              const meta = (want.has('SEASON') || want.has('EPISODE_NUMBER')) ? firstText(card, metaSels) : null;
+              const progressEl = want.has('PROGRESS') ? firstEl(card, progressSels) : null;
+              let dateText = null, dateAttr = null;
+              if (want.has('DATE')) {
+                for (const sel of dateSels) {
+                  const el = card.querySelector(sel);
+                  if (!el) continue;
+                  dateText = text(el);
+                  dateAttr = el.getAttribute('datetime');
+                  if (dateText || dateAttr) break;
+                }
+              }
+              const titles = want.has('SERIES') || want.has('EPISODE');
+              return {
+                url: url,
+                series: series,
+                episode: episode,
+                meta: meta,
+                progressStyle: progressEl ? progressEl.getAttribute('style') : null,
+                dateText: dateText,
+                dateAttr: dateAttr,
+                fullText: (titles && series === null && episode === null) ? text(card) : null
+              };
+            };
+            """;
+
+    /**
+     * Collects raw card fields for every card matched by the first non-empty card selector,
+     * optionally hollowing out each card that yielded a URL.
+     * Arguments: card selectors, series, episode, meta, progress and date selectors, prune flag,
+     * field names to extract.
+     */
+    public static final String HARVEST_SCRIPT = """
+            const [cardSels, seriesSels, episodeSels, metaSels, progressSels, dateSels, prune, fields] = arguments;
+            """ + EXTRACT_FUNCTIONS + """
+            return findCards().map(card => {
+              const item = extract(card);
+              if (prune && item.url !== null) hollow(card);
+              return item;
+            });
+            """;
+
+    /**
+     * Installs a page-side harvester that keeps scrolling and queues newly rendered cards,
+     * so lazy loading in the browser overlaps with extraction in Java. It pauses scrolling
+     * while the queue is full and marks itself done after idleTicks ticks at the bottom
+     * of the page without new cards. Batches are taken with {@link #DRAIN_SCRIPT}.
+     * Arguments: the six selector lists, tick interval (ms), scroll step (px),
+     * max queued cards, idle ticks, prune flag and field names to extract.
+     */
+    public static final String SCROLL_AHEAD_SCRIPT = """
+            const [cardSels, seriesSels, episodeSels, metaSels, progressSels, dateSels,
+                   tickMs, step, maxQueue, idleTicks, prune, fields] = arguments;
+            """ + EXTRACT_FUNCTIONS + """
+            if (window.__crHarvest) clearInterval(window.__crHarvest.timer);
+            const state = { queue: [], done: false, idle: 0, seen: new WeakSet() };
+            const tick = () => {
+              let added = 0;
+              for (const card of findCards()) {
+                if (state.seen.has(card)) continue;
+                const item = extract(card);
+                // Cards without a link may still be rendering; look at them again next tick
+                if (item.url === null) continue;
+                state.seen.add(card);
+                state.queue.push(item);
+                if (prune) hollow(card);
+                added++;
+              }
+              if (state.queue.length < maxQueue) window.scrollBy(0, step);
+              const atBottom = window.innerHeight + window.scrollY >= document.body.scrollHeight - 2;
+              state.idle = (added === 0 && atBottom) ? state.idle + 1 : 0;
+              if (state.idle >= idleTicks) {
+                state.done = true;
+                clearInterval(state.timer);
+              }
+            };
+            state.drain = max => ({ items: state.queue.splice(0, max), done: state.done, pending: state.queue.length });
+            window.__crHarvest = state;
+            tick();
+            state.timer = setInterval(tick, tickMs);
+            """;
+
+    /**
+     * Takes up to arguments[0] queued cards from the scroll-ahead harvester.
+     * Returns null if the harvester is not installed (e.g. after a navigation).
+     */
+    public static final String DRAIN_SCRIPT =
+            "return window.__crHarvest ? window.__crHarvest.drain(arguments[0]) : null;";
+
+    /**
+     * Stops the scroll-ahead harvester if it is running.
+     */
+    public static final String STOP_SCRIPT =
+            "if (window.__crHarvest) { clearInterval(window.__crHarvest.timer); window.__crHarvest = undefined; }";
+
+    public static CardSnapshot fromScriptResult(Map<?, ?> raw) {
+        return new CardSnapshot(
+                string(raw.get("url")),
+                string(raw.get("series")),
+                string(raw.get("episode")),
+                string(raw.get("meta")),
+                string(raw.get("progressStyle")),
+                string(raw.get("dateText")),
+                string(raw.get("dateAttr")),
+                string(raw.get("fullText"))
+        );
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Normalizes the raw card text the same way DOM extraction does.
+     * Returns null if the card has neither a URL nor a title.
+     */
+    public HistoryEntry toEntry() {
+        String series = blankToNull(seriesTitle);
+        String episode = blankToNull(episodeTitle);
+        String seasonInfo = null;
+        String episodeNumber = null;
+        String progress = null;
+        String watchedDate = null;
+
+        String meta = blankToNull(metaText);
+        if (meta != null) {
+            // Parse "S1 E12" or "Season 1, Episode 12" formats
+            if (meta.contains("S") && meta.contains("E")) {
+                seasonInfo = meta;
+            } else if (meta.matches(".*\\d+.*")) {
+                episodeNumber = meta;
+            }
+        }
+
+        if (progressStyle != null && progressStyle.contains("width")) {
+            progress = progressStyle.replaceAll(".*width:\\s*([\\d.]+%).*", "$1");
+        }
+
+        watchedDate = blankToNull(dateText);
+        if (watchedDate == null) {
+            watchedDate = blankToNull(dateAttr);
+        }
+
+        // If we couldn't find structured data, fall back to the full card text
+        if (series == null && episode == null && fullText != null && !fullText.isBlank()) {
+            String[] lines = fullText.trim().split("\n");
+            if (lines.length > 0) series = lines[0].trim();
+            if (lines.length > 1) episode = lines[1].trim();
+            if (lines.length > 2) seasonInfo = lines[2].trim();
+        }
+
+        if (url != null || series != null) {
+            return new HistoryEntry(series, episode, seasonInfo, episodeNumber, watchedDate, progress, url);
+        }
+        return null;
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,326 @@
+package com.crunchyroll.scraper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Reads existing .crunchy.log exports back into {@link HistoryEntry} records.
+ * <p>
+ * Files are memory-mapped and scanned byte by byte for line boundaries; each entry is a
+ * "[n] [date] Series - Season - Episode: Title (progress)" line optionally followed by
+ * "    URL: ..." and is parsed with plain index arithmetic, no regular expressions.
+ * Files are processed in parallel and entries are handed to a consumer as they are parsed.
+ */
+public class CrunchyLogImporter {
+    private static final Logger LOG = LoggerFactory.getLogger(CrunchyLogImporter.class);
+    private static final long MAX_CHUNK = 1L << 30;
+    private static final String URL_PREFIX = "URL: ";
+    private static final String UNKNOWN_DATE = "Unknown Date";
+    private static final String UNKNOWN_SERIES = "Unknown Series";
+
+    private final int parallelism;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong entriesParsed = new AtomicLong();
+
+    /**
+     * Receives parsed entries; may block to apply backpressure.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(HistoryEntry entry) throws InterruptedException;
+    }
+
+    public CrunchyLogImporter(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Expands directories to the *.crunchy.log files they contain.
+     */
+    public static List<Path> resolve(List<Path> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(p -> p.getFileName().toString().endsWith(".crunchy.log"))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Imports all files in parallel. Entry order across files is not preserved.
+     */
+    public void importFiles(List<Path> files, EntryConsumer consumer) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, files.size())))) {
+            List<Future<Long>> results = new ArrayList<>();
+            for (Path file : files) {
+                results.add(executor.submit(() -> importFile(file, consumer)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    long count = results.get(i).get();
+                    LOG.debug("Imported {} entries from {}", count, files.get(i));
+                } catch (java.util.concurrent.ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof InterruptedException ie) {
+                        throw ie;
+                    }
+                    throw new IOException("Import of " + files.get(i) + " failed: " + cause.getMessage(), cause);
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        LOG.info("Imported {} entries from {} files ({} MB) in {} s ({} MB/s)",
+                entriesParsed.get(), files.size(),
+                String.format("%.1f", bytesRead.get() / 1_048_576.0),
+                String.format("%.2f", seconds),
+                String.format("%.1f", bytesRead.get() / 1_048_576.0 / Math.max(seconds, 1e-9)));
+    }
+
+    /**
+     * Imports a single file, mapping it in chunks that end on a line boundary.
+     */
+    public long importFile(Path file, EntryConsumer consumer) throws IOException, InterruptedException {
+        Parser parser = new Parser(consumer);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(MAX_CHUNK, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    // Only consume complete lines; the remainder is mapped again with the next chunk
+                    while (end > 0 && buffer.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IOException("Line longer than " + MAX_CHUNK + " bytes in " + file);
+                    }
+                }
+                parser.parse(buffer, end);
+                position += end;
+            }
+        }
+        parser.finish();
+        bytesRead.addAndGet(Files.size(file));
+        entriesParsed.addAndGet(parser.count);
+        return parser.count;
+    }
+
+    public long entriesParsed() {
+        return entriesParsed.get();
+    }
+
+    /**
+     * Line scanner with the entry state carried across mapped chunks.
+     */
+    private static final class Parser {
+        private final EntryConsumer consumer;
+        private byte[] line = new byte[512];
+        private String pendingHeader;
+        private long count = 0;
+
+        Parser(EntryConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        void parse(MappedByteBuffer buffer, int end) throws InterruptedException {
+            int start = 0;
+            for (int i = 0; i < end; i++) {
+                if (buffer.get(i) == '\n') {
+                    handleLine(buffer, start, i);
+                    start = i + 1;
+                }
+            }
+            if (start < end) {
+                handleLine(buffer, start, end);
+            }
+        }
+
+        private void handleLine(MappedByteBuffer buffer, int from, int to) throws InterruptedException {
+            if (to > from && buffer.get(to - 1) == '\r') {
+                to--;
+            }
+            // Skip indentation so "    URL: ..." lines can be recognized by their first byte
+            while (from < to && buffer.get(from) == ' ') {
+                from++;
+            }
+            int length = to - from;
+            if (length == 0) {
+                return;
+            }
+
+            byte first = buffer.get(from);
+            if (first == '[' && length > 2 && isDigit(buffer.get(from + 1))) {
+                flush(null);
+                pendingHeader = decode(buffer, from, length);
+            } else if (first == 'U' && pendingHeader != null && startsWith(buffer, from, to, URL_PREFIX)) {
+                String url = decode(buffer, from + URL_PREFIX.length(), length - URL_PREFIX.length()).trim();
+                flush(url.isEmpty() ? null : url);
+            } else if (pendingHeader != null) {
+                flush(null);
+            }
+        }
+
+        private void flush(String url) throws InterruptedException {
+            if (pendingHeader == null) {
+                return;
+            }
+            HistoryEntry entry = parseHeader(pendingHeader, url);
+            pendingHeader = null;
+            if (entry != null) {
+                count++;
+                consumer.accept(entry);
+            }
+        }
+
+        void finish() throws IOException {
+            try {
+                flush(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while importing", e);
+            }
+        }
+
+        private String decode(MappedByteBuffer buffer, int from, int length) {
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            buffer.get(from, line, 0, length);
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private static boolean startsWith(MappedByteBuffer buffer, int from, int to, String prefix) {
+            if (to - from < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (buffer.get(from + i) != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+
+    /**
+     * Parses "[n] [date] Series - Season - Episode: Title (progress)" as written by
+     * {@link HistoryEntry#toLogLine()}.
+     */
+    static HistoryEntry parseHeader(String header, String url) {
+        int pos = header.indexOf("] ");
+        if (pos < 0) {
+            return null;
+        }
+        String rest = header.substring(pos + 2);
+
+        String watchedDate = null;
+        if (rest.startsWith("[")) {
+            int close = rest.indexOf("] ");
+            if (close > 0) {
+                watchedDate = rest.substring(1, close);
+                rest = rest.substring(close + 2);
+                if (UNKNOWN_DATE.equals(watchedDate)) {
+                    watchedDate = null;
+                }
+            }
+        }
+
+        String progress = null;
+        if (rest.endsWith(")")) {
+            int open = rest.lastIndexOf(" (");
+            if (open >= 0 && rest.charAt(rest.length() - 2) == '%') {
+                progress = rest.substring(open + 2, rest.length() - 1);
+                rest = rest.substring(0, open);
+            }
+        }
+
+        // The episode title follows the first ": " after the last " - " separator
+        String episodeTitle = null;
+        int lastDash = rest.lastIndexOf(" - ");
+        int colon = rest.indexOf(": ", lastDash >= 0 ? lastDash + 3 : 0);
+        String head = rest;
+        if (colon >= 0) {
+            episodeTitle = rest.substring(colon + 2);
+            head = rest.substring(0, colon);
+        }
+
+        List<String> segments = split(head);
+        String episodeNumber = null;
+        String seasonInfo = null;
+        if (segments.size() > 1 && looksLikeEpisode(segments.get(segments.size() - 1))) {
+            episodeNumber = segments.remove(segments.size() - 1);
+        }
+        if (segments.size() > 1 && looksLikeSeason(segments.get(segments.size() - 1))) {
+            seasonInfo = segments.remove(segments.size() - 1);
+        }
+        String seriesTitle = String.join(" - ", segments);
+        if (seriesTitle.isEmpty() || UNKNOWN_SERIES.equals(seriesTitle)) {
+            seriesTitle = null;
+        }
+
+        if (url == null && seriesTitle == null) {
+            return null;
+        }
+        return new HistoryEntry(seriesTitle, episodeTitle, seasonInfo, episodeNumber, watchedDate, progress, url);
+    }
+
+    private static List<String> split(String head) {
+        List<String> segments = new ArrayList<>(4);
+        int start = 0;
+        int idx;
+        while ((idx = head.indexOf(" - ", start)) >= 0) {
+            segments.add(head.substring(start, idx));
+            start = idx + 3;
+        }
+        segments.add(head.substring(start));
+        return segments;
+    }
+
+    private static boolean looksLikeEpisode(String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+        char c = segment.charAt(0);
+        return Character.isDigit(c)
+                || (c == 'E' && segment.length() > 1 && Character.isDigit(segment.charAt(1)))
+                || segment.startsWith("Episode")
+                || segment.startsWith("Folge")
+                || segment.startsWith("Ep.");
+    }
+
+    private static boolean looksLikeSeason(String segment) {
+        return segment.startsWith("Season")
+                || segment.startsWith("Staffel")
+                || (segment.length() > 1 && segment.charAt(0) == 'S' && Character.isDigit(segment.charAt(1)));
+    }
+}
@@ -6,17 +6,23 @@ import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Scrapes Crunchyroll watch history and exports to a log file.
@@ -29,25 +35,86 @@ public class CrunchyrollHistoryScraper {
     private static final String HISTORY_URL_EN = "https://www.crunchyroll.com/history";
     private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd.HH-mm-ss");
 
+    // Selectors for different Crunchyroll layouts, shared by DOM extraction and the harvest script
+    private static final List<String> CARD_SELECTORS = List.of(
+            ".history-playable-card",
+            "[data-t='playable-card']",
+            ".playable-card",
+            ".erc-browse-collection .browse-card",
+            ".watchlist-card",
+            ".history-item",
+            "[class*='history'] [class*='card']",
+            "a[href*='/watch/']"
+    );
+    private static final List<String> SERIES_SELECTORS = List.of(
+            "[data-t='series-title']",
+            ".series-title",
+            "h5",
+            "[class*='series']",
+            ".title a"
+    );
+    private static final List<String> EPISODE_SELECTORS = List.of(
+            "[data-t='episode-title']",
+            ".episode-title",
+            "h6",
+            "[class*='episode']",
+            ".subtitle"
+    );
+    private static final List<String> META_SELECTORS = List.of(
+            "[data-t='episode-info']",
+            ".episode-info",
+            "[class*='season']",
+            ".meta-info",
+            "span[class*='episode']"
+    );
+    private static final List<String> PROGRESS_SELECTORS = List.of(
+            "[data-t='progress']",
+            ".progress-bar",
+            "[class*='progress']"
+    );
+    private static final List<String> DATE_SELECTORS = List.of(
+            "[data-t='watched-date']",
+            ".watched-date",
+            "time",
+            "[class*='date']"
+    );
+
     private final WebDriver driver;
-    private final WebDriverWait wait;
     private final String email;
     private final String password;
     private final String profileName;
     private final Path outputPath;
     private final boolean manualMode;
+    private final DiagnosticsRecorder diagnostics;
+    private final boolean pipelineMode = Boolean.parseBoolean(System.getProperty("pipeline", "false"));
+    private final boolean scrollAheadMode = "scroll-ahead".equalsIgnoreCase(System.getProperty("harvest", "batch"));
+    private final boolean networkCaptureMode = "network".equalsIgnoreCase(System.getProperty("capture", "dom"));
+    private NetworkHistoryCapture networkCapture;
+    private final ScrapeMetrics metrics = ScrapeMetrics.global();
+    private final DomPruner pruner;
+    private final ScrapeBudget budget = ScrapeBudget.fromSystemProperties();
+    private Set<HistoryField> outputFields = HistoryField.ALL;
+    private Set<HistoryField> extractFields = EnumSet.allOf(HistoryField.class);
+
+    /**
+     * Restricts the export to the given fields; extraction skips lookups for the rest.
+     */
+    public void setOutputFields(Set<HistoryField> outputFields) {
+        this.outputFields = outputFields;
+    }
 
     /**
      * Constructor for automatic mode (handles login automatically).
      */
     public CrunchyrollHistoryScraper(WebDriver driver, String email, String password, String profileName, Path outputPath) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(30));
         this.email = email;
         this.password = password;
         this.profileName = profileName;
         this.outputPath = outputPath;
         this.manualMode = false;
+        this.diagnostics = DiagnosticsRecorder.fromSystemProperties(driver);
+        this.pruner = DomPruner.fromSystemProperties((JavascriptExecutor) driver, metrics);
     }
 
     /**
@@ -55,12 +122,13 @@ public class CrunchyrollHistoryScraper {
      */
     public CrunchyrollHistoryScraper(WebDriver driver, Path outputPath) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(30));
         this.email = null;
         this.password = null;
         this.profileName = null;
         this.outputPath = outputPath;
         this.manualMode = true;
+        this.diagnostics = DiagnosticsRecorder.fromSystemProperties(driver);
+        this.pruner = DomPruner.fromSystemProperties((JavascriptExecutor) driver, metrics);
     }
 
     public void run() throws IOException {
@@ -68,14 +136,20 @@ public class CrunchyrollHistoryScraper {
 
         try {
             login();
-            selectProfile();
-            navigateToHistory();
-            List<HistoryEntry> entries = scrapeHistory();
-            exportToFile(entries);
-            LOG.info("Scraping completed successfully! Found {} entries", entries.size());
+            // A budget used up before the history page still ends in an (empty) export
+            if (!budget.exhausted()) {
+                selectProfile();
+                startNetworkCapture();
+                navigateToHistory(HISTORY_URL);
+            }
+            int count = scrapeAndExport();
+            LOG.info("Scraping completed successfully! Found {} entries", count);
         } catch (Exception e) {
             LOG.error("Scraping failed: {}", e.getMessage(), e);
+            diagnostics.flush();
             throw e;
+        } finally {
+            diagnostics.close();
         }
     }
 
@@ -99,40 +173,91 @@ public class CrunchyrollHistoryScraper {
 
         try {
             waitForHistoryPage();
-            LOG.info("History page detected! Starting scrape...");
 
-            List<HistoryEntry> entries = scrapeHistory();
-            exportToFile(entries);
-            LOG.info("Scraping completed successfully! Found {} entries", entries.size());
+            if (networkCaptureMode && !budget.exhausted()) {
+                // The first page of history was fetched before we subscribed, so load it again
+                startNetworkCapture();
+                driver.navigate().refresh();
+                budget.sleep(3000);
+            }
+
+            int count = scrapeAndExport();
+            LOG.info("Scraping completed successfully! Found {} entries", count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reloading history page", e);
         } catch (Exception e) {
             LOG.error("Scraping failed: {}", e.getMessage(), e);
+            diagnostics.flush();
             throw e;
+        } finally {
+            diagnostics.close();
         }
     }
 
+    /**
+     * Direct mode: loads a history page at an overridden base URL without logging in.
+     * Used for offline end-to-end benchmarks against the synthetic history site from the test sources.
+     */
+    public void runDirect(String baseUrl) throws IOException {
+        String historyUrl = baseUrl.replaceAll("/+$", "") + "/history";
+        LOG.info("Starting Crunchyroll History Scraper against {}", historyUrl);
+
+        try {
+            long started = System.nanoTime();
+            startNetworkCapture();
+            navigateToHistory(historyUrl);
+            int count = scrapeAndExport();
+            double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+            LOG.info("Scraping completed successfully! Found {} entries in {} s ({} entries/s)",
+                    count, String.format("%.1f", seconds), String.format("%.1f", count / seconds));
+        } catch (Exception e) {
+            LOG.error("Scraping failed: {}", e.getMessage(), e);
+            diagnostics.flush();
+            throw e;
+        } finally {
+            diagnostics.close();
+        }
+    }
+
+    /**
+     * A wait for the given time, shortened to what is left of the time budget.
+     */
+    private WebDriverWait waitUpTo(Duration timeout) {
+        return new WebDriverWait(driver, budget.cap(timeout));
+    }
+
     /**
      * Waits for user to navigate to the Crunchyroll history page.
      */
     private void waitForHistoryPage() {
         LOG.info("Monitoring browser for history page...");
 
-        WebDriverWait longWait = new WebDriverWait(driver, Duration.ofSeconds(600)); // 10 minutes
-        longWait.until(driver -> {
-            String url = driver.getCurrentUrl().toLowerCase();
-            boolean isHistoryPage = url.contains("crunchyroll.com/history") ||
-                    url.contains("crunchyroll.com/de/history") ||
-                    url.contains("crunchyroll.com/en/history");
-
-            if (!isHistoryPage) {
-                // Log current URL every few seconds to show progress
-                LOG.debug("Current URL: {} (waiting for history page)", url);
+        WebDriverWait longWait = waitUpTo(Duration.ofSeconds(600)); // 10 minutes
+        try {
+            longWait.until(driver -> {
+                String url = driver.getCurrentUrl().toLowerCase();
+                boolean isHistoryPage = url.contains("crunchyroll.com/history") ||
+                        url.contains("crunchyroll.com/de/history") ||
+                        url.contains("crunchyroll.com/en/history");
+
+                if (!isHistoryPage) {
+                    // Log current URL every few seconds to show progress
+                    LOG.debug("Current URL: {} (waiting for history page)", url);
+                }
+                return isHistoryPage;
+            });
+        } catch (TimeoutException e) {
+            if (!budget.exhausted()) {
+                throw e;
             }
-            return isHistoryPage;
-        });
+            return;
+        }
+        LOG.info("History page detected! Starting scrape...");
 
         // Give page time to fully load
         try {
-            Thread.sleep(3000);
+            budget.sleep(3000);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -151,30 +276,30 @@ public class CrunchyrollHistoryScraper {
         LOG.info("Entering credentials...");
         try {
             // Wait for SSO page to load (may redirect to sso.crunchyroll.com)
-            Thread.sleep(3000);
+            budget.sleep(3000);
 
             // Wait for email field - SSO page uses input fields
-            WebElement emailField = wait.until(ExpectedConditions.elementToBeClickable(
+            WebElement emailField = waitUpTo(Duration.ofSeconds(30)).until(ExpectedConditions.elementToBeClickable(
                     By.cssSelector("input[type='email'], input[name='username'], input[autocomplete='email']")));
             emailField.clear();
             emailField.sendKeys(email);
             LOG.info("Email entered");
 
             // Wait a moment for any field validation
-            Thread.sleep(500);
+            budget.sleep(500);
 
             // Find and fill password field - must wait for it to be interactable
-            WebElement passwordField = wait.until(ExpectedConditions.elementToBeClickable(
+            WebElement passwordField = waitUpTo(Duration.ofSeconds(30)).until(ExpectedConditions.elementToBeClickable(
                     By.cssSelector("input[type='password'], input[name='password'], input[autocomplete='current-password']")));
             passwordField.clear();
             passwordField.sendKeys(password);
             LOG.info("Password entered");
 
             // Wait a moment before clicking login
-            Thread.sleep(1000);
+            budget.sleep(1000);
 
             // Click login button using JavaScript for reliability
-            WebElement loginButton = wait.until(ExpectedConditions.elementToBeClickable(
+            WebElement loginButton = waitUpTo(Duration.ofSeconds(30)).until(ExpectedConditions.elementToBeClickable(
                     By.cssSelector("button[type='submit'], form button, button[class*='submit'], button[class*='login']")));
 
             // Try JavaScript click first (more reliable)
@@ -183,14 +308,14 @@ public class CrunchyrollHistoryScraper {
             LOG.info("Login button clicked via JavaScript");
 
             // Also try pressing Enter on password field as backup
-            Thread.sleep(500);
+            budget.sleep(500);
             try {
                 passwordField.sendKeys(Keys.RETURN);
                 LOG.info("Enter key pressed");
             } catch (Exception ignored) {}
 
             // Wait for login to complete with longer timeout
-            WebDriverWait longWait = new WebDriverWait(driver, Duration.ofSeconds(60));
+            WebDriverWait longWait = waitUpTo(Duration.ofSeconds(60));
             longWait.until(ExpectedConditions.or(
                     ExpectedConditions.urlContains("crunchyroll.com/home"),
                     ExpectedConditions.urlContains("crunchyroll.com/de"),
@@ -202,17 +327,21 @@ public class CrunchyrollHistoryScraper {
             ));
 
             LOG.info("Login successful!");
-            Thread.sleep(2000); // Brief pause for page to stabilize
+            budget.sleep(2000); // Brief pause for page to stabilize
         } catch (Exception e) {
-            LOG.error("Login failed. Taking screenshot for debugging...");
-            takeScreenshot("login_failed");
+            if (budget.exhausted()) {
+                LOG.warn("Login did not finish within the time budget: {}", e.getMessage());
+                return;
+            }
+            LOG.error("Login failed. Saving diagnostics...");
+            diagnostics.captureFailure("login_failed");
             throw new RuntimeException("Login failed: " + e.getMessage(), e);
         }
     }
 
     private void handleCookieConsent() {
         try {
-            Thread.sleep(2000); // Wait for cookie dialog to appear
+            budget.sleep(2000); // Wait for cookie dialog to appear
             WebElement acceptButton = driver.findElement(By.cssSelector(
                     "button[data-t='cookie-consent-accept-all'], " +
                     "button.consent-btn, " +
@@ -221,7 +350,7 @@ public class CrunchyrollHistoryScraper {
                     "button[aria-label*='Akzeptieren']"));
             acceptButton.click();
             LOG.info("Cookie consent accepted");
-            Thread.sleep(500);
+            budget.sleep(500);
         } catch (NoSuchElementException e) {
             LOG.debug("No cookie consent dialog found");
         } catch (Exception e) {
@@ -251,10 +380,10 @@ public class CrunchyrollHistoryScraper {
                 LOG.warn("The script will continue automatically once solved.");
                 LOG.warn("========================================");
 
-                takeScreenshot("captcha_detected");
+                diagnostics.captureProblem("captcha_detected");
 
                 // Wait up to 5 minutes for CAPTCHA to be solved
-                WebDriverWait captchaWait = new WebDriverWait(driver, Duration.ofSeconds(300));
+                WebDriverWait captchaWait = waitUpTo(Duration.ofSeconds(300));
                 captchaWait.until(driver -> {
                     String source = driver.getPageSource().toLowerCase();
                     String url = driver.getCurrentUrl().toLowerCase();
@@ -272,7 +401,7 @@ public class CrunchyrollHistoryScraper {
                 });
 
                 // Give a moment for the page to settle
-                Thread.sleep(2000);
+                budget.sleep(2000);
             } else {
                 LOG.info("No CAPTCHA detected");
             }
@@ -286,7 +415,7 @@ public class CrunchyrollHistoryScraper {
 
         try {
             // Wait a bit for potential profile page
-            Thread.sleep(3000);
+            budget.sleep(3000);
 
             // Check if we're on a profile selection page
             String currentUrl = driver.getCurrentUrl();
@@ -304,7 +433,7 @@ public class CrunchyrollHistoryScraper {
             }
 
             LOG.info("Profile selection page detected. Looking for profile: {}", profileName);
-            takeScreenshot("profile_selection");
+            diagnostics.capture("profile_selection");
 
             // Find the profile by name
             WebElement targetProfile = null;
@@ -341,7 +470,7 @@ public class CrunchyrollHistoryScraper {
                 LOG.info("Profile '{}' selected", profileName);
 
                 // Wait for profile selection to complete
-                Thread.sleep(3000);
+                budget.sleep(3000);
             } else {
                 LOG.warn("Could not find profile '{}'. Available profiles:", profileName);
                 for (WebElement p : profileElements) {
@@ -352,7 +481,7 @@ public class CrunchyrollHistoryScraper {
                     JavascriptExecutor js = (JavascriptExecutor) driver;
                     js.executeScript("arguments[0].click();", profileElements.get(0));
                     LOG.info("Selected first available profile as fallback");
-                    Thread.sleep(3000);
+                    budget.sleep(3000);
                 }
             }
         } catch (Exception e) {
@@ -360,20 +489,23 @@ public class CrunchyrollHistoryScraper {
         }
     }
 
-    private void navigateToHistory() {
+    private void navigateToHistory(String historyUrl) {
         LOG.info("Navigating to history page...");
-        driver.get(HISTORY_URL);
+        driver.get(historyUrl);
 
         try {
             // Wait for page to fully load
-            Thread.sleep(5000);
+            budget.sleep(5000);
 
-            // Take screenshot to debug
-            takeScreenshot("history_page");
+            // Record snapshot for diagnostics
+            diagnostics.capture("history_page");
             LOG.info("Current URL: {}", driver.getCurrentUrl());
+            if (budget.exhausted()) {
+                return;
+            }
 
             // Wait for any content to appear - broad selectors
-            wait.until(ExpectedConditions.or(
+            waitUpTo(Duration.ofSeconds(30)).until(ExpectedConditions.or(
                     ExpectedConditions.presenceOfElementLocated(By.cssSelector("[data-t='history-content']")),
                     ExpectedConditions.presenceOfElementLocated(By.cssSelector("[class*='history']")),
                     ExpectedConditions.presenceOfElementLocated(By.cssSelector("[class*='playable']")),
@@ -386,7 +518,31 @@ public class CrunchyrollHistoryScraper {
             Thread.currentThread().interrupt();
         } catch (Exception e) {
             LOG.warn("Could not verify history page loaded, continuing anyway: {}", e.getMessage());
-            takeScreenshot("history_page_error");
+            diagnostics.captureProblem("history_page_error");
+        }
+    }
+
+    /**
+     * Scrapes the history page and writes the export: from captured network responses
+     * with -Dcapture=network, from the in-page scroll-ahead harvester with
+     * -Dharvest=scroll-ahead, through the staged pipeline with -Dpipeline=true,
+     * or sequentially otherwise.
+     */
+    private int scrapeAndExport() throws IOException {
+        budget.apply(driver);
+        if (networkCapture != null) {
+            return scrapeHistoryFromNetwork();
+        }
+        if (scrollAheadMode) {
+            return scrapeHistoryScrollAhead();
+        }
+        if (pipelineMode) {
+            return scrapeHistoryPipelined();
+        }
+        try (HistorySink sink = openSink()) {
+            List<HistoryEntry> entries = scrapeHistory();
+            exportToFile(sink, entries);
+            return entries.size();
         }
     }
 
@@ -395,24 +551,35 @@ public class CrunchyrollHistoryScraper {
         List<HistoryEntry> entries = new ArrayList<>();
         Set<String> seenUrls = new HashSet<>();
 
-        // Take initial screenshot for debugging
-        takeScreenshot("before_scraping");
+        // Record initial snapshot for diagnostics
+        diagnostics.capture("before_scraping");
+        metrics.scrapeStarted();
 
         int previousCount = 0;
         int scrollAttempts = 0;
         int maxScrollAttempts = 100;
 
-        while (scrollAttempts < maxScrollAttempts) {
+        while (scrollAttempts < maxScrollAttempts && !budget.exhausted()) {
             try {
+                long iterationStart = System.nanoTime();
+                budget.startIteration();
+
                 // Find all history cards/items
                 List<WebElement> cards = findHistoryCards();
+                List<WebElement> extracted = new ArrayList<>();
 
                 for (WebElement card : cards) {
+                    if (budget.iterationExpired()) {
+                        LOG.warn("Iteration budget used up after {} of {} cards, scrolling on", extracted.size(), cards.size());
+                        break;
+                    }
                     try {
                         HistoryEntry entry = extractEntryFromCard(card);
-                        if (entry != null && entry.url() != null && !seenUrls.contains(entry.url())) {
-                            seenUrls.add(entry.url());
-                            entries.add(entry);
+                        if (entry != null && entry.url() != null) {
+                            extracted.add(card);
+                            if (seenUrls.add(entry.url())) {
+                                entries.add(entry);
+                            }
                         }
                     } catch (StaleElementReferenceException e) {
                         LOG.debug("Stale element, skipping...");
@@ -420,6 +587,9 @@ public class CrunchyrollHistoryScraper {
                         LOG.debug("Error extracting entry: {}", e.getMessage());
                     }
                 }
+                // Cards without a URL stay intact and are retried on the next pass
+                pruner.prune(extracted);
+                pruner.logIteration(System.nanoTime() - iterationStart);
 
                 LOG.info("Found {} unique entries so far...", entries.size());
 
@@ -430,8 +600,8 @@ public class CrunchyrollHistoryScraper {
                         if (entries.size() > 0) {
                             LOG.info("No new entries found after {} scroll attempts, finishing...", scrollAttempts);
                         } else {
-                            LOG.warn("No entries found. Taking debug screenshot...");
-                            takeScreenshot("no_entries_found");
+                            LOG.warn("No entries found. Saving diagnostics...");
+                            diagnostics.captureFailure("no_entries_found");
                         }
                         break;
                     }
@@ -439,10 +609,11 @@ public class CrunchyrollHistoryScraper {
                     scrollAttempts = 0;
                     previousCount = entries.size();
                 }
+                metrics.iteration(entries.size(), scrollAttempts);
 
                 // Scroll down to load more
                 scrollDown();
-                Thread.sleep(1500);
+                budget.sleep(1500);
 
             } catch (NoSuchSessionException e) {
                 LOG.error("Browser session lost. Entries collected so far: {}", entries.size());
@@ -460,22 +631,301 @@ public class CrunchyrollHistoryScraper {
         return entries;
     }
 
+    /**
+     * Pipelined scrape: this thread only does browser I/O (one script call per
+     * iteration), while parsing, dedup and the streaming export run as separate
+     * stages behind bounded queues.
+     */
+    private int scrapeHistoryPipelined() throws IOException {
+        LOG.info("Scraping history entries (pipeline mode)...");
+        diagnostics.capture("before_scraping");
+        metrics.scrapeStarted();
+
+        int previousCardCount = 0;
+        int scrollAttempts = 0;
+        int maxScrollAttempts = 100;
+        long count;
+
+        try (HistoryPipeline pipeline = new HistoryPipeline(openSink())) {
+            while (scrollAttempts < maxScrollAttempts && !budget.exhausted()) {
+                try {
+                    long iterationStart = System.nanoTime();
+                    List<CardSnapshot> cards = harvestCards();
+                    for (CardSnapshot card : cards) {
+                        pipeline.submit(card);
+                    }
+                    int withUrl = (int) cards.stream().filter(c -> c.url() != null).count();
+                    if (pruner.isEnabled()) {
+                        pruner.pruned(withUrl);
+                    }
+                    pruner.logIteration(System.nanoTime() - iterationStart);
+                    pipeline.logStats();
+
+                    // Progress is judged by the number of rendered cards, so the
+                    // harvest stage never has to wait for dedup to catch up.
+                    // Pruned cards are no longer returned, so each card with a URL is
+                    // progress; cards without one are returned again on every pass.
+                    int cardCount = pruner.isEnabled() ? previousCardCount + withUrl : cards.size();
+                    if (cardCount <= previousCardCount) {
+                        scrollAttempts++;
+                        if (scrollAttempts >= 3) {
+                            LOG.info("No new cards found after {} scroll attempts, finishing...", scrollAttempts);
+                            break;
+                        }
+                    } else {
+                        scrollAttempts = 0;
+                        previousCardCount = cardCount;
+                    }
+                    metrics.iteration(pipeline.uniqueCount(), scrollAttempts);
+
+                    scrollDown();
+                    budget.sleep(1500);
+
+                } catch (NoSuchSessionException e) {
+                    LOG.error("Browser session lost. Cards harvested so far: {}", previousCardCount);
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    LOG.warn("Error during scraping: {}. Continuing...", e.getMessage());
+                    scrollAttempts++;
+                }
+            }
+
+            pipeline.finish();
+            count = pipeline.uniqueCount();
+        }
+
+        if (count == 0) {
+            LOG.warn("No entries found. Saving diagnostics...");
+            diagnostics.captureFailure("no_entries_found");
+        }
+        LOG.info("Total unique entries found: {}", count);
+        return (int) count;
+    }
+
+    /**
+     * Scroll-ahead scrape: an in-page harvester keeps scrolling and queues new cards
+     * while this thread drains them in batches (one script call per batch) into the
+     * pipeline, so lazy loading in the browser overlaps with extraction.
+     */
+    private int scrapeHistoryScrollAhead() throws IOException {
+        LOG.info("Scraping history entries (scroll-ahead mode)...");
+        diagnostics.capture("before_scraping");
+        metrics.scrapeStarted();
+
+        int tickMs = Integer.parseInt(System.getProperty("harvest.tick.ms", "250"));
+        int batchSize = Integer.parseInt(System.getProperty("harvest.batch", "200"));
+        int maxQueue = Integer.parseInt(System.getProperty("harvest.queue", "1000"));
+        // Same patience as the alternating loop: about 3 x 1.5 s at the bottom without new cards
+        int idleTicks = Math.max(1, 4500 / Math.max(1, tickMs));
+        long stallMillis = 30_000;
+
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        int harvested = 0;
+        int emptyDrains = 0;
+        int drainErrors = 0;
+        long count;
+
+        try (HistoryPipeline pipeline = new HistoryPipeline(openSink())) {
+            js.executeScript(CardSnapshot.SCROLL_AHEAD_SCRIPT,
+                    CARD_SELECTORS, SERIES_SELECTORS, EPISODE_SELECTORS, META_SELECTORS, PROGRESS_SELECTORS, DATE_SELECTORS,
+                    tickMs, 800, maxQueue, idleTicks, pruner.isEnabled(), fieldNames());
+            long lastProgress = System.currentTimeMillis();
+
+            while (!budget.exhausted()) {
+                try {
+                    Object result = js.executeScript(CardSnapshot.DRAIN_SCRIPT, batchSize);
+                    if (!(result instanceof Map<?, ?> state)) {
+                        LOG.warn("Scroll-ahead harvester is gone (page reloaded?), finishing...");
+                        break;
+                    }
+                    int drained = 0;
+                    if (state.get("items") instanceof List<?> items) {
+                        for (Object item : items) {
+                            if (item instanceof Map<?, ?> map) {
+                                pipeline.submit(CardSnapshot.fromScriptResult(map));
+                                drained++;
+                            }
+                        }
+                    }
+                    harvested += drained;
+                    if (pruner.isEnabled()) {
+                        pruner.pruned(drained);
+                    }
+                    boolean done = Boolean.TRUE.equals(state.get("done"));
+
+                    drainErrors = 0;
+                    if (drained > 0) {
+                        emptyDrains = 0;
+                        lastProgress = System.currentTimeMillis();
+                        LOG.info("Harvested {} cards so far ({} queued in page)...", harvested, state.get("pending"));
+                    } else {
+                        emptyDrains++;
+                    }
+                    metrics.iteration(pipeline.uniqueCount(), emptyDrains);
+
+                    if (done && drained == 0) {
+                        LOG.info("Reached the end of the history after {} cards, finishing...", harvested);
+                        break;
+                    }
+                    if (System.currentTimeMillis() - lastProgress > stallMillis) {
+                        LOG.info("No new cards for {} s, finishing...", stallMillis / 1000);
+                        break;
+                    }
+                    // A full batch means the page is ahead of us; drain again right away
+                    if (drained < batchSize) {
+                        budget.sleep(tickMs);
+                    }
+
+                } catch (NoSuchSessionException e) {
+                    LOG.error("Browser session lost. Cards harvested so far: {}", harvested);
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (WebDriverException e) {
+                    LOG.warn("Error draining harvested cards: {}", e.getMessage());
+                    if (++drainErrors >= 3) {
+                        break;
+                    }
+                }
+            }
+            pipeline.logStats();
+
+            try {
+                js.executeScript(CardSnapshot.STOP_SCRIPT);
+            } catch (WebDriverException e) {
+                LOG.debug("Could not stop scroll-ahead harvester: {}", e.getMessage());
+            }
+            pipeline.finish();
+            count = pipeline.uniqueCount();
+        }
+
+        if (count == 0) {
+            LOG.warn("No entries found. Saving diagnostics...");
+            diagnostics.captureFailure("no_entries_found");
+        }
+        LOG.info("Total unique entries found: {}", count);
+        return (int) count;
+    }
+
+    /**
+     * Subscribes to the history API responses before the history page is loaded.
+     * Only active with -Dcapture=network on a driver with DevTools support.
+     */
+    private void startNetworkCapture() {
+        if (!networkCaptureMode || networkCapture != null) {
+            return;
+        }
+        try {
+            networkCapture = NetworkHistoryCapture.attach(BrowserManager.devToolsFor(driver),
+                    System.getProperty("capture.url", NetworkHistoryCapture.DEFAULT_URL_PATTERN));
+        } catch (Exception e) {
+            LOG.warn("Network capture unavailable, falling back to DOM extraction: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Network capture scrape: scrolling only drives pagination, entries are decoded
+     * from the page's own history responses and fed into the pipeline.
+     */
+    private int scrapeHistoryFromNetwork() throws IOException {
+        LOG.info("Scraping history entries (network capture mode)...");
+        diagnostics.capture("before_scraping");
+        metrics.scrapeStarted();
+
+        int captured = 0;
+        int scrollAttempts = 0;
+        int maxScrollAttempts = 100;
+        long count;
+
+        try (NetworkHistoryCapture capture = networkCapture;
+             HistoryPipeline pipeline = new HistoryPipeline(openSink())) {
+            String historyPage = driver.getCurrentUrl();
+            while (scrollAttempts < maxScrollAttempts && !budget.exhausted()) {
+                try {
+                    List<HistoryEntry> batch = capture.drain(historyPage);
+                    for (HistoryEntry entry : batch) {
+                        pipeline.submit(entry);
+                    }
+                    captured += batch.size();
+                    LOG.info("Captured {} entries from {} responses so far...", captured, capture.responsesDecoded());
+                    // Entries come from the responses, so every rendered card can go
+                    if (pruner.isEnabled()) {
+                        pruner.prune(pruner.findLiveCards(CARD_SELECTORS));
+                    }
+
+                    if (batch.isEmpty()) {
+                        scrollAttempts++;
+                        if (scrollAttempts >= 3) {
+                            LOG.info("No new history responses after {} scroll attempts, finishing...", scrollAttempts);
+                            break;
+                        }
+                    } else {
+                        scrollAttempts = 0;
+                    }
+                    metrics.iteration(pipeline.uniqueCount(), scrollAttempts);
+
+                    scrollDown();
+                    budget.sleep(1500);
+
+                } catch (NoSuchSessionException e) {
+                    LOG.error("Browser session lost. Entries captured so far: {}", captured);
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    LOG.warn("Error during scraping: {}. Continuing...", e.getMessage());
+                    scrollAttempts++;
+                }
+            }
+
+            pipeline.finish();
+            count = pipeline.uniqueCount();
+        }
+
+        if (count == 0) {
+            LOG.warn("No history responses captured (pattern '{}'). Saving diagnostics...",
+                    System.getProperty("capture.url", NetworkHistoryCapture.DEFAULT_URL_PATTERN));
+            diagnostics.captureFailure("no_entries_found");
+        }
+        LOG.info("Total unique entries found: {}", count);
+        return (int) count;
+    }
+
+    /**
+     * Reads the raw fields of every rendered card in a single browser round trip.
+     */
+    private List<CardSnapshot> harvestCards() {
+        Object result = ((JavascriptExecutor) driver).executeScript(CardSnapshot.HARVEST_SCRIPT,
+                CARD_SELECTORS, SERIES_SELECTORS, EPISODE_SELECTORS, META_SELECTORS, PROGRESS_SELECTORS, DATE_SELECTORS,
+                pruner.isEnabled(), fieldNames());
+        List<CardSnapshot> cards = new ArrayList<>();
+        if (result instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof Map<?, ?> map) {
+                    cards.add(CardSnapshot.fromScriptResult(map));
+                }
+            }
+        }
+        return cards;
+    }
+
+    private List<String> fieldNames() {
+        return extractFields.stream().map(Enum::name).toList();
+    }
+
     private List<WebElement> findHistoryCards() {
+        if (pruner.isEnabled()) {
+            return pruner.findLiveCards(CARD_SELECTORS);
+        }
         List<WebElement> cards = new ArrayList<>();
 
         // Try multiple selectors for different Crunchyroll layouts
-        String[] selectors = {
-                ".history-playable-card",
-                "[data-t='playable-card']",
-                ".playable-card",
-                ".erc-browse-collection .browse-card",
-                ".watchlist-card",
-                ".history-item",
-                "[class*='history'] [class*='card']",
-                "a[href*='/watch/']"
-        };
-
-        for (String selector : selectors) {
+        for (String selector : CARD_SELECTORS) {
             try {
                 cards = driver.findElements(By.cssSelector(selector));
                 if (!cards.isEmpty()) {
@@ -498,6 +948,7 @@ public class CrunchyrollHistoryScraper {
         String watchedDate = null;
         String progress = null;
         String url = null;
+        Set<HistoryField> fields = extractFields;
 
         // Try to extract URL
         try {
@@ -512,99 +963,77 @@ public class CrunchyrollHistoryScraper {
         }
 
         // Try to extract series title
-        String[] seriesSelectors = {
-                "[data-t='series-title']",
-                ".series-title",
-                "h5",
-                "[class*='series']",
-                ".title a"
-        };
-        for (String sel : seriesSelectors) {
-            try {
-                WebElement el = card.findElement(By.cssSelector(sel));
-                seriesTitle = el.getText().trim();
-                if (!seriesTitle.isEmpty()) break;
-            } catch (Exception ignored) {}
+        if (fields.contains(HistoryField.SERIES)) {
+            for (String sel : SERIES_SELECTORS) {
+                try {
+                    WebElement el = card.findElement(By.cssSelector(sel));
+                    seriesTitle = el.getText().trim();
+                    if (!seriesTitle.isEmpty()) break;
+                } catch (Exception ignored) {}
+            }
         }
 
         // Try to extract episode title
-        String[] episodeSelectors = {
-                "[data-t='episode-title']",
-                ".episode-title",
-                "h6",
-                "[class*='episode']",
-                ".subtitle"
-        };
-        for (String sel : episodeSelectors) {
-            try {
-                WebElement el = card.findElement(By.cssSelector(sel));
-                episodeTitle = el.getText().trim();
-                if (!episodeTitle.isEmpty()) break;
-            } catch (Exception ignored) {}
+        if (fields.contains(HistoryField.EPISODE)) {
+            for (String sel : EPISODE_SELECTORS) {
+                try {
+                    WebElement el = card.findElement(By.cssSelector(sel));
+                    episodeTitle = el.getText().trim();
+                    if (!episodeTitle.isEmpty()) break;
+                } catch (Exception ignored) {}
+            }
         }
 
         // Try to extract season/episode info
-        String[] metaSelectors = {
-                "[data-t='episode-info']",
-                ".episode-info",
-                "[class*='season']",
-                ".meta-info",
-                "span[class*='episode']"
-        };
-        for (String sel : metaSelectors) {
-            try {
-                WebElement el = card.findElement(By.cssSelector(sel));
-                String text = el.getText().trim();
-                if (!text.isEmpty()) {
-                    // Parse "S1 E12" or "Season 1, Episode 12" formats
-                    if (text.contains("S") && text.contains("E")) {
-                        seasonInfo = text;
-                    } else if (text.matches(".*\\d+.*")) {
-                        episodeNumber = text;
+        if (fields.contains(HistoryField.SEASON) || fields.contains(HistoryField.EPISODE_NUMBER)) {
+            for (String sel : META_SELECTORS) {
+                try {
+                    WebElement el = card.findElement(By.cssSelector(sel));
+                    String text = el.getText().trim();
+                    if (!text.isEmpty()) {
+                        // Parse "S1 E12" or "Season 1, Episode 12" formats
+                        if (text.contains("S") && text.contains("E")) {
+                            seasonInfo = text;
+                        } else if (text.matches(".*\\d+.*")) {
+                            episodeNumber = text;
+                        }
+                        break;
                     }
-                    break;
-                }
-            } catch (Exception ignored) {}
+                } catch (Exception ignored) {}
+            }
         }
 
         // Try to extract progress
-        String[] progressSelectors = {
-                "[data-t='progress']",
-                ".progress-bar",
-                "[class*='progress']"
-        };
-        for (String sel : progressSelectors) {
-            try {
-                WebElement el = card.findElement(By.cssSelector(sel));
-                String width = el.getCssValue("width");
-                String style = el.getAttribute("style");
-                if (style != null && style.contains("width")) {
-                    progress = style.replaceAll(".*width:\\s*([\\d.]+%).*", "$1");
-                }
-                break;
-            } catch (Exception ignored) {}
+        if (fields.contains(HistoryField.PROGRESS)) {
+            for (String sel : PROGRESS_SELECTORS) {
+                try {
+                    WebElement el = card.findElement(By.cssSelector(sel));
+                    String style = el.getAttribute("style");
+                    if (style != null && style.contains("width")) {
+                        progress = style.replaceAll(".*width:\\s*([\\d.]+%).*", "$1");
+                    }
+                    break;
+                } catch (Exception ignored) {}
+            }
         }
 
         // Try to extract watched date
-        String[] dateSelectors = {
-                "[data-t='watched-date']",
-                ".watched-date",
-                "time",
-                "[class*='date']"
-        };
-        for (String sel : dateSelectors) {
-            try {
-                WebElement el = card.findElement(By.cssSelector(sel));
-                watchedDate = el.getText().trim();
-                if (watchedDate.isEmpty()) {
-                    watchedDate = el.getAttribute("datetime");
-                }
-                if (watchedDate != null && !watchedDate.isEmpty()) break;
-            } catch (Exception ignored) {}
+        if (fields.contains(HistoryField.DATE)) {
+            for (String sel : DATE_SELECTORS) {
+                try {
+                    WebElement el = card.findElement(By.cssSelector(sel));
+                    watchedDate = el.getText().trim();
+                    if (watchedDate.isEmpty()) {
+                        watchedDate = el.getAttribute("datetime");
+                    }
+                    if (watchedDate != null && !watchedDate.isEmpty()) break;
+                } catch (Exception ignored) {}
+            }
         }
 
         // If we couldn't find structured data, try to parse the full card text
-        if (seriesTitle == null && episodeTitle == null) {
+        if (seriesTitle == null && episodeTitle == null
+                && (fields.contains(HistoryField.SERIES) || fields.contains(HistoryField.EPISODE))) {
             try {
                 String fullText = card.getText().trim();
                 if (!fullText.isEmpty()) {
@@ -628,59 +1057,59 @@ public class CrunchyrollHistoryScraper {
         js.executeScript("window.scrollBy(0, 800);");
     }
 
-    private void exportToFile(List<HistoryEntry> entries) throws IOException {
-        Path parent = outputPath.getParent();
-        if (parent != null && !Files.exists(parent)) {
-            Files.createDirectories(parent);
+    private void exportToFile(HistorySink sink, List<HistoryEntry> entries) throws IOException {
+        for (HistoryEntry entry : entries) {
+            sink.accept(entry);
         }
+    }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(outputPath)) {
-            writer.write("=".repeat(80));
-            writer.newLine();
-            writer.write("CRUNCHYROLL WATCH HISTORY EXPORT");
-            writer.newLine();
-            writer.write("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            writer.newLine();
-            writer.write("Total Entries: " + entries.size());
-            writer.newLine();
-            writer.write("=".repeat(80));
-            writer.newLine();
-            writer.newLine();
-
-            for (int i = 0; i < entries.size(); i++) {
-                writer.write(String.format("[%d] %s", i + 1, entries.get(i).toLogLine()));
-                writer.newLine();
-                writer.newLine();
-            }
+    /**
+     * Creates the export sink and restricts extraction to the fields it needs.
+     * The URL is always extracted because deduplication is keyed on it.
+     */
+    private HistorySink openSink() {
+        HistorySink sink = createSink(outputPath, outputFields);
+        extractFields = EnumSet.copyOf(sink.requiredFields());
+        extractFields.add(HistoryField.URL);
+        LOG.debug("Extracting fields: {}", extractFields);
+        return sink;
+    }
 
-            writer.write("=".repeat(80));
-            writer.newLine();
-            writer.write("END OF EXPORT");
-            writer.newLine();
-            writer.write("=".repeat(80));
-            writer.newLine();
+    /**
+     * Creates the export sink. With -Dmetadata.url set, entries are enriched with
+     * series metadata through a two-tier cache and a series summary is appended.
+     */
+    private static HistorySink createSink(Path outputPath, Set<HistoryField> fields) {
+        LogFileExporter exporter = new LogFileExporter(outputPath, fields);
+        String metadataUrl = System.getProperty("metadata.url");
+        if (metadataUrl == null || metadataUrl.isBlank()) {
+            return exporter;
         }
 
-        LOG.info("History exported to: {}", outputPath.toAbsolutePath());
-    }
+        Path cachePath = Path.of(System.getProperty("metadata.cache",
+                Path.of(System.getProperty("user.home"), ".crunchyroll-scraper", "series-cache.tsv").toString()));
+        Duration ttl = Duration.ofHours(Long.parseLong(System.getProperty("metadata.ttl.hours",
+                String.valueOf(SeriesMetadataCache.DEFAULT_TTL.toHours()))));
+        int lruSize = Integer.parseInt(System.getProperty("metadata.lru",
+                String.valueOf(SeriesMetadataCache.DEFAULT_MEMORY_CAPACITY)));
 
-    private void takeScreenshot(String name) {
-        try {
-            if (driver instanceof TakesScreenshot) {
-                byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-                Path screenshotPath = Path.of(System.getProperty("user.home"), "Documents",
-                        name + "_" + System.currentTimeMillis() + ".png");
-                Files.write(screenshotPath, screenshot);
-                LOG.info("Screenshot saved: {}", screenshotPath);
-            }
-        } catch (Exception e) {
-            LOG.warn("Failed to take screenshot: {}", e.getMessage());
-        }
+        SeriesMetadataCache cache = new SeriesMetadataCache(new HttpSeriesMetadataSource(URI.create(metadataUrl)),
+                cachePath, ttl, lruSize, SeriesMetadataCache.DEFAULT_BATCH_SIZE);
+        return new EnrichingSink(exporter, cache);
     }
 
     public static void main(String[] args) {
         boolean manualMode = false;
         String outputPathArg = null;
+        String baseUrl = null;
+        String importArg = null;
+        int metricsPort = 0;
+        boolean startupProbe = false;
+        String buildIndexArg = null;
+        String searchQuery = null;
+        String indexArg = null;
+        int searchLimit = 10;
+        Set<HistoryField> fields = HistoryField.ALL;
 
         // Parse arguments
         List<String> positionalArgs = new ArrayList<>();
@@ -689,31 +1118,219 @@ public class CrunchyrollHistoryScraper {
                 manualMode = true;
             } else if (arg.startsWith("--output=")) {
                 outputPathArg = arg.substring("--output=".length());
+            } else if (arg.startsWith("--metrics-port=")) {
+                metricsPort = Integer.parseInt(arg.substring("--metrics-port=".length()));
+            } else if (arg.startsWith("--import=")) {
+                importArg = arg.substring("--import=".length());
+            } else if (arg.startsWith("--base-url=")) {
+                baseUrl = arg.substring("--base-url=".length());
+            } else if (arg.equals("--startup-probe")) {
+                startupProbe = true;
+            } else if (arg.startsWith("--build-index=")) {
+                buildIndexArg = arg.substring("--build-index=".length());
+            } else if (arg.startsWith("--search=")) {
+                searchQuery = arg.substring("--search=".length());
+            } else if (arg.startsWith("--index=")) {
+                indexArg = arg.substring("--index=".length());
+            } else if (arg.startsWith("--fields=")) {
+                try {
+                    fields = HistoryField.parse(arg.substring("--fields=".length()));
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    System.exit(1);
+                }
+            } else if (arg.startsWith("--limit=")) {
+                searchLimit = Integer.parseInt(arg.substring("--limit=".length()));
             } else if (!arg.startsWith("-")) {
                 positionalArgs.add(arg);
             }
         }
 
-        // Manual mode: connect to existing browser
-        if (manualMode) {
-            runManualMode(outputPathArg);
-            return;
+        // Optional Prometheus endpoint, served until the selected mode has finished
+        boolean metricsEnabled = metricsPort > 0;
+        MetricsServer metricsServer = null;
+        if (metricsEnabled) {
+            try {
+                metricsServer = new MetricsServer(metricsPort, ScrapeMetrics.global());
+            } catch (IOException e) {
+                LOG.error("Could not start metrics endpoint on port {}: {}", metricsPort, e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        try {
+            // Startup probe: time to the first page load, then exit
+            if (startupProbe) {
+                runStartupProbe();
+                return;
+            }
+
+            // Manual mode: connect to existing browser
+            if (manualMode) {
+                runManualMode(outputPathArg, metricsEnabled, fields);
+                return;
+            }
+
+            // Index/search mode: fuzzy title search over existing exports without a browser
+            if (buildIndexArg != null || searchQuery != null) {
+                Path indexPath = indexArg != null ? Path.of(indexArg)
+                        : Path.of(System.getProperty("user.home"), ".crunchyroll-scraper", "title-index.bin");
+                if (buildIndexArg != null) {
+                    runBuildIndexMode(buildIndexArg, indexPath);
+                }
+                if (searchQuery != null) {
+                    runSearchMode(searchQuery, indexPath, searchLimit);
+                }
+                return;
+            }
+
+            // Import mode: merge existing exports without a browser
+            if (importArg != null) {
+                runImportMode(importArg, outputPathArg, fields);
+                return;
+            }
+
+            // Direct mode: scrape a history page at a custom base URL (no login)
+            if (baseUrl != null) {
+                runDirectMode(baseUrl, outputPathArg, metricsEnabled, fields);
+                return;
+            }
+
+            // Automatic mode: requires credentials
+            if (positionalArgs.size() < 3) {
+                printUsage();
+                System.exit(1);
+            }
+
+            String email = positionalArgs.get(0);
+            String password = positionalArgs.get(1);
+            String profileName = positionalArgs.get(2);
+
+            Path outputPath;
+            if (positionalArgs.size() >= 4) {
+                outputPath = Path.of(positionalArgs.get(3));
+            } else if (outputPathArg != null) {
+                outputPath = Path.of(outputPathArg);
+            } else {
+                String filename = LocalDateTime.now().format(FILE_FORMAT) + ".crunchy.log";
+                outputPath = Path.of(System.getProperty("user.home"), "Documents", filename);
+            }
+
+            boolean headless = Boolean.parseBoolean(System.getProperty("headless", "false"));
+
+            try (BrowserManager browserManager = new BrowserManager(headless, ResourceBlocker.Policy.fromSystemProperties())) {
+                WebDriver driver = browserManager.initChrome();
+                if (metricsEnabled) {
+                    driver = ScrapeMetrics.global().instrument(driver);
+                }
+
+                CrunchyrollHistoryScraper scraper = new CrunchyrollHistoryScraper(driver, email, password, profileName, outputPath);
+                scraper.setOutputFields(fields);
+                scraper.run();
+
+            } catch (Exception e) {
+                LOG.error("Scraper failed: {}", e.getMessage(), e);
+                System.exit(1);
+            }
+        } finally {
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
         }
+    }
 
-        // Automatic mode: requires credentials
-        if (positionalArgs.size() < 3) {
-            printUsage();
+    private static List<Path> parsePaths(String pathsArg) {
+        List<Path> paths = new ArrayList<>();
+        for (String part : pathsArg.split(",")) {
+            if (!part.isBlank()) {
+                paths.add(Path.of(part.trim()));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Builds the fuzzy title index from existing exports, keeping one entry per URL.
+     */
+    private static void runBuildIndexMode(String pathsArg, Path indexPath) {
+        try {
+            List<Path> files = CrunchyLogImporter.resolve(parsePaths(pathsArg));
+            LOG.info("Indexing {} export files...", files.size());
+
+            Map<String, HistoryEntry> entries = new ConcurrentHashMap<>();
+            CrunchyLogImporter importer = new CrunchyLogImporter(Runtime.getRuntime().availableProcessors());
+            importer.importFiles(files, entry ->
+                    entries.putIfAbsent(entry.url() != null ? entry.url() : entry.toLogLine(), entry));
+
+            long started = System.nanoTime();
+            TitleIndex index = TitleIndex.build(entries.values());
+            index.save(indexPath);
+            LOG.info("Indexed {} entries ({} distinct titles) in {} ms: {}",
+                    index.entryCount(), index.titleCount(), (System.nanoTime() - started) / 1_000_000, indexPath);
+        } catch (Exception e) {
+            LOG.error("Building the title index failed: {}", e.getMessage(), e);
             System.exit(1);
         }
+    }
+
+    private static void runSearchMode(String query, Path indexPath, int limit) {
+        TitleIndex index;
+        try {
+            index = TitleIndex.load(indexPath);
+        } catch (IOException e) {
+            LOG.error("Could not load title index {} (build it with --build-index=PATHS): {}", indexPath, e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        long started = System.nanoTime();
+        List<TitleIndex.Match> matches = index.search(query, limit);
+        double millis = (System.nanoTime() - started) / 1_000_000.0;
+
+        System.out.println();
+        System.out.printf("%d matches for \"%s\" in %.2f ms (%d titles, %d entries)%n",
+                matches.size(), query, millis, index.titleCount(), index.entryCount());
+        System.out.println();
+        for (TitleIndex.Match match : matches) {
+            if (match.field() == TitleIndex.Field.SERIES) {
+                System.out.printf("%.2f  [series]  %s (%d entries)%n", match.score(), match.title(), match.entries().size());
+            } else {
+                System.out.printf("%.2f  [episode] %s%n", match.score(), match.title());
+                for (HistoryEntry entry : match.entries()) {
+                    System.out.println("          " + entry.toLogLine().replace("\n", "\n          "));
+                }
+            }
+        }
+    }
+
+    private static void runImportMode(String importArg, String outputPathArg, Set<HistoryField> fields) {
+        Path outputPath;
+        if (outputPathArg != null) {
+            outputPath = Path.of(outputPathArg);
+        } else {
+            String filename = LocalDateTime.now().format(FILE_FORMAT) + ".crunchy.log";
+            outputPath = Path.of(System.getProperty("user.home"), "Documents", filename);
+        }
 
-        String email = positionalArgs.get(0);
-        String password = positionalArgs.get(1);
-        String profileName = positionalArgs.get(2);
+        try {
+            List<Path> files = CrunchyLogImporter.resolve(parsePaths(importArg));
+            LOG.info("Importing {} export files...", files.size());
+
+            CrunchyLogImporter importer = new CrunchyLogImporter(Runtime.getRuntime().availableProcessors());
+            try (HistoryPipeline pipeline = new HistoryPipeline(createSink(outputPath, fields))) {
+                importer.importFiles(files, pipeline::submit);
+                pipeline.finish();
+                LOG.info("Import completed! {} unique entries from {} parsed", pipeline.uniqueCount(), importer.entriesParsed());
+            }
+        } catch (Exception e) {
+            LOG.error("Import failed: {}", e.getMessage(), e);
+            System.exit(1);
+        }
+    }
 
+    private static void runDirectMode(String baseUrl, String outputPathArg, boolean metricsEnabled, Set<HistoryField> fields) {
         Path outputPath;
-        if (positionalArgs.size() >= 4) {
-            outputPath = Path.of(positionalArgs.get(3));
-        } else if (outputPathArg != null) {
+        if (outputPathArg != null) {
             outputPath = Path.of(outputPathArg);
         } else {
             String filename = LocalDateTime.now().format(FILE_FORMAT) + ".crunchy.log";
@@ -722,11 +1339,15 @@ public class CrunchyrollHistoryScraper {
 
         boolean headless = Boolean.parseBoolean(System.getProperty("headless", "false"));
 
-        try (BrowserManager browserManager = new BrowserManager(headless)) {
+        try (BrowserManager browserManager = new BrowserManager(headless, ResourceBlocker.Policy.fromSystemProperties())) {
             WebDriver driver = browserManager.initChrome();
+            if (metricsEnabled) {
+                driver = ScrapeMetrics.global().instrument(driver);
+            }
 
-            CrunchyrollHistoryScraper scraper = new CrunchyrollHistoryScraper(driver, email, password, profileName, outputPath);
-            scraper.run();
+            CrunchyrollHistoryScraper scraper = new CrunchyrollHistoryScraper(driver, outputPath);
+            scraper.setOutputFields(fields);
+            scraper.runDirect(baseUrl);
 
         } catch (Exception e) {
             LOG.error("Scraper failed: {}", e.getMessage(), e);
@@ -734,7 +1355,55 @@ public class CrunchyrollHistoryScraper {
         }
     }
 
-    private static void runManualMode(String outputPathArg) {
+    /**
+     * Measures the time from process launch to the first driver.get against an
+     * in-process synthetic history page and harvests it once. Used by
+     * scripts/startup-bench.sh and as the AppCDS training run of the aot profile.
+     */
+    private static void runStartupProbe() {
+        long launched = ProcessHandle.current().info().startInstant()
+                .map(Instant::toEpochMilli)
+                .orElseGet(() -> ManagementFactory.getRuntimeMXBean().getStartTime());
+
+        try (BrowserManager browserManager = new BrowserManager(true)) {
+            WebDriver driver = browserManager.initChrome();
+            long beforeGet = System.currentTimeMillis();
+            driver.get(startupProbePage(25));
+            long afterGet = System.currentTimeMillis();
+
+            // Touch the script/JSON path too, so a training run archives those classes
+            CrunchyrollHistoryScraper scraper = new CrunchyrollHistoryScraper(driver,
+                    Path.of(System.getProperty("java.io.tmpdir"), "startup-probe.crunchy.log"));
+            int cards = scraper.harvestCards().size();
+
+            System.out.println("startup-probe first_get_ms=" + (beforeGet - launched)
+                    + " first_load_ms=" + (afterGet - launched) + " cards=" + cards);
+        } catch (Exception e) {
+            LOG.error("Startup probe failed: {}", e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * A static history page with the given number of cards, as a data: URL so the
+     * probe needs no server.
+     */
+    private static String startupProbePage(int cards) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><body><main>");
+        for (int i = 1; i <= cards; i++) {
+            html.append("<div data-t=\"playable-card\">")
+                    .append("<a href=\"https://www.crunchyroll.com/de/watch/GPROBE").append(i).append("/episode-").append(i).append("\">")
+                    .append("<h5 data-t=\"series-title\">Startup Probe</h5>")
+                    .append("<h6 data-t=\"episode-title\">Episode ").append(i).append("</h6></a>")
+                    .append("<span data-t=\"episode-info\">S1 E").append(i).append("</span>")
+                    .append("<div data-t=\"progress\" class=\"bar\" style=\"width: 100%\"></div>")
+                    .append("<time data-t=\"watched-date\">2025-01-01</time></div>");
+        }
+        html.append("</main></body></html>");
+        return "data:text/html;base64," + Base64.getEncoder().encodeToString(html.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void runManualMode(String outputPathArg, boolean metricsEnabled, Set<HistoryField> fields) {
         Path outputPath;
         if (outputPathArg != null) {
             outputPath = Path.of(outputPathArg);
@@ -771,8 +1440,12 @@ public class CrunchyrollHistoryScraper {
 
         try (BrowserManager browserManager = new BrowserManager(false)) {
             WebDriver driver = browserManager.connectToExistingChrome(debugPort);
+            if (metricsEnabled) {
+                driver = ScrapeMetrics.global().instrument(driver);
+            }
 
             CrunchyrollHistoryScraper scraper = new CrunchyrollHistoryScraper(driver, outputPath);
+            scraper.setOutputFields(fields);
             scraper.runManual();
 
         } catch (Exception e) {
@@ -803,6 +1476,15 @@ public class CrunchyrollHistoryScraper {
         System.out.println("Arguments:");
         System.out.println("  --manual, -m    Use manual mode (connect to existing Chrome)");
         System.out.println("  --output=PATH   Specify output file path");
+        System.out.println("  --fields=LIST   Only extract/export these fields: url,series,episode,season,episode-number,date,progress");
+        System.out.println("  --metrics-port=N  Serve live Prometheus metrics at http://localhost:N/metrics");
+        System.out.println("  --import=PATHS  Merge existing .crunchy.log files/directories (comma-separated) into one export");
+        System.out.println("  --base-url=URL  Scrape URL/history directly without login (e.g. the synthetic test site)");
+        System.out.println("  --startup-probe Print the time from launch to the first driver.get and exit");
+        System.out.println("  --build-index=PATHS  Build the fuzzy title index from .crunchy.log files/directories");
+        System.out.println("  --search=QUERY  Fuzzy search series/episode titles in the index");
+        System.out.println("  --index=PATH    Title index file (default: ~/.crunchyroll-scraper/title-index.bin)");
+        System.out.println("  --limit=N       Maximum search results (default: 10)");
         System.out.println("  email           Your Crunchyroll email (automatic mode)");
         System.out.println("  password        Your Crunchyroll password (automatic mode)");
         System.out.println("  profile         Profile name to select (automatic mode)");
@@ -810,6 +1492,25 @@ public class CrunchyrollHistoryScraper {
         System.out.println("Environment Variables:");
         System.out.println("  -Ddebug.port=PORT   Chrome debug port (default: 9222)");
         System.out.println("  -Dheadless=true     Run in headless mode (automatic mode only)");
+        System.out.println("  -Dgrid.nodes=URLS   Run Chrome on remote Selenium servers/Grid hubs (least loaded first)");
+        System.out.println("  -Dgrid.session.seconds=N  Time a new remote session may wait in the Grid queue (default: 300)");
+        System.out.println("  -Dblock.resources=LIST  Block image,media,font,stylesheet,analytics via DevTools");
+        System.out.println("  -Dblock.urls=LIST       Extra URL patterns to block (e.g. *ads.example.com*)");
+        System.out.println("  -Dcapture=network   Decode history from the page's own API responses (Chrome)");
+        System.out.println("  -Dcapture.url=TEXT  URL fragment of the history API (default: watch-history)");
+        System.out.println("  -Dmetadata.url=URL  Enrich the export with series metadata from a JSON endpoint");
+        System.out.println("  -Dmetadata.cache=PATH     Disk cache (default: ~/.crunchyroll-scraper/series-cache.tsv)");
+        System.out.println("  -Dmetadata.ttl.hours=N    Disk cache TTL in hours (default: 168)");
+        System.out.println("  -Dpipeline=true     Staged harvest/parse/dedup/export pipeline with bounded queues");
+        System.out.println("  -Dharvest=scroll-ahead    Keep scrolling in the page while batches are extracted");
+        System.out.println("  -Dprune=true        Hollow out extracted cards so long scrolls keep the DOM small");
+        System.out.println("  -Dbudget.total.seconds=N  Stop after N s (from process start) and export what was found");
+        System.out.println("  -Dbudget.reserve.seconds=N    Time kept for writing the export (default: 5)");
+        System.out.println("  -Dbudget.iteration.seconds=N  Time per scroll iteration (default: 30 with a total budget)");
+        System.out.println("  -Dbudget.command.seconds=N    Timeout per WebDriver command (default: 30 with a budget)");
+        System.out.println("  -Ddebug=true        Always write buffered screenshots/DOM snapshots to disk");
+        System.out.println("  -Ddiagnostics.dir=DIR     Diagnostics output directory (default: ~/Documents)");
+        System.out.println("  -Ddiagnostics.buffer=N    Number of snapshots kept in memory (default: 8)");
         System.out.println();
         System.out.println("Output:");
         System.out.println("  Default: ~/Documents/YYYY-MM-DD.HH-mm-ss.crunchy.log");
@@ -0,0 +1,201 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a bounded ring buffer of recent screenshots and DOM snapshots.
+ * Decoding, compression and disk writes happen on a background thread;
+ * the buffer is only written out on failure or when debug is enabled.
+ * Without debug, success-path checkpoints only record the current URL.
+ */
+public class DiagnosticsRecorder implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(DiagnosticsRecorder.class);
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final WebDriver driver;
+    private final Path outputDir;
+    private final int capacity;
+    private final boolean debug;
+    private final Deque<Snapshot> buffer = new ArrayDeque<>();
+    private final ExecutorService encoder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "diagnostics-encoder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record Snapshot(String name, long timestamp, String url, byte[] png, byte[] domGzip) {}
+
+    public DiagnosticsRecorder(WebDriver driver, Path outputDir, int capacity, boolean debug) {
+        this.driver = driver;
+        this.outputDir = outputDir;
+        this.capacity = Math.max(1, capacity);
+        this.debug = debug;
+    }
+
+    /**
+     * Creates a recorder configured via -Ddebug, -Ddiagnostics.dir and -Ddiagnostics.buffer.
+     */
+    public static DiagnosticsRecorder fromSystemProperties(WebDriver driver) {
+        Path dir = Path.of(System.getProperty("diagnostics.dir",
+                Path.of(System.getProperty("user.home"), "Documents").toString()));
+        int capacity = Integer.parseInt(System.getProperty("diagnostics.buffer", String.valueOf(DEFAULT_CAPACITY)));
+        boolean debug = Boolean.parseBoolean(System.getProperty("debug", "false"));
+        return new DiagnosticsRecorder(driver, dir, capacity, debug);
+    }
+
+    /**
+     * Records a checkpoint on the success path: a full snapshot with -Ddebug=true,
+     * otherwise just the current URL, so normal runs skip the screenshot and page source.
+     */
+    public void capture(String name) {
+        if (debug) {
+            captureProblem(name);
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        String url = null;
+        try {
+            url = driver.getCurrentUrl();
+        } catch (Exception e) {
+            LOG.debug("Failed to read URL for '{}': {}", name, e.getMessage());
+        }
+        String rawUrl = url;
+        submit(() -> add(new Snapshot(name, timestamp, rawUrl, null, null)));
+    }
+
+    /**
+     * Records a screenshot and DOM snapshot into the ring buffer, for states worth
+     * inspecting later (CAPTCHA, unexpected page). Only the raw WebDriver round trips
+     * run on the calling thread.
+     */
+    public void captureProblem(String name) {
+        long timestamp = System.currentTimeMillis();
+        String screenshot = null;
+        String pageSource = null;
+        try {
+            if (driver instanceof TakesScreenshot) {
+                screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            }
+        } catch (Exception e) {
+            LOG.debug("Failed to capture screenshot '{}': {}", name, e.getMessage());
+        }
+        try {
+            pageSource = driver.getPageSource();
+        } catch (Exception e) {
+            LOG.debug("Failed to capture DOM snapshot '{}': {}", name, e.getMessage());
+        }
+
+        String rawScreenshot = screenshot;
+        String rawSource = pageSource;
+        submit(() -> {
+            byte[] png = rawScreenshot != null ? Base64.getMimeDecoder().decode(rawScreenshot) : null;
+            byte[] dom = rawSource != null ? gzip(rawSource) : null;
+            add(new Snapshot(name, timestamp, null, png, dom));
+        });
+    }
+
+    private void add(Snapshot snapshot) {
+        if (buffer.size() >= capacity) {
+            buffer.removeFirst();
+        }
+        buffer.addLast(snapshot);
+    }
+
+    /**
+     * Records a snapshot for a failure and writes the whole buffer to disk.
+     */
+    public void captureFailure(String name) {
+        captureProblem(name);
+        flush();
+    }
+
+    /**
+     * Writes all buffered snapshots to disk in the background and clears the buffer.
+     */
+    public void flush() {
+        submit(() -> {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            Files.createDirectories(outputDir);
+            while (!buffer.isEmpty()) {
+                Snapshot snapshot = buffer.removeFirst();
+                String base = snapshot.name() + "_" + snapshot.timestamp();
+                if (snapshot.url() != null) {
+                    Path path = outputDir.resolve(base + ".url.txt");
+                    Files.writeString(path, snapshot.url() + System.lineSeparator());
+                    LOG.info("Checkpoint saved: {}", path);
+                }
+                if (snapshot.png() != null) {
+                    Path path = outputDir.resolve(base + ".png");
+                    Files.write(path, snapshot.png());
+                    LOG.info("Screenshot saved: {}", path);
+                }
+                if (snapshot.domGzip() != null) {
+                    Path path = outputDir.resolve(base + ".html.gz");
+                    Files.write(path, snapshot.domGzip());
+                    LOG.info("DOM snapshot saved: {}", path);
+                }
+            }
+        });
+    }
+
+    private void submit(IoTask task) {
+        try {
+            encoder.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    LOG.warn("Diagnostics task failed: {}", e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            LOG.debug("Diagnostics recorder is closed, dropping task");
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    @Override
+    public void close() {
+        if (debug) {
+            flush();
+        }
+        encoder.shutdown();
+        try {
+            if (!encoder.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warn("Diagnostics encoder did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
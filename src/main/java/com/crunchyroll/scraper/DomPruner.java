@@ -0,0 +1,153 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the history page DOM small during long scrolls.
+ * <p>
+ * Cards that have already been extracted are hollowed out: their children are removed,
+ * their rendered size is pinned so the page keeps its scroll height (and infinite scroll
+ * keeps triggering), and they are marked with {@value #PRUNED_ATTRIBUTE} so later card
+ * lookups skip them. While pruning, or while metrics are served, also samples DOM size and
+ * JS heap so growth is visible per iteration.
+ */
+public class DomPruner {
+    private static final Logger LOG = LoggerFactory.getLogger(DomPruner.class);
+
+    public static final String PRUNED_ATTRIBUTE = "data-cr-pruned";
+
+    /**
+     * Page-side hollow(card): pins the card's size, drops its subtree and marks it pruned.
+     */
+    static final String HOLLOW_FUNCTION = """
+            const hollow = card => {
+              if (!card.isConnected || card.hasAttribute('data-cr-pruned')) return false;
+              const rect = card.getBoundingClientRect();
+              card.style.height = rect.height + 'px';
+              card.style.width = rect.width + 'px';
+              card.style.contain = 'strict';
+              card.replaceChildren();
+              card.setAttribute('data-cr-pruned', '');
+              return true;
+            };
+            """;
+
+    /**
+     * Unpruned cards of the first selector that matches any card, pruned or not,
+     * so the layout detection does not fall through to a broader selector once
+     * every card of the current layout has been pruned.
+     */
+    private static final String FIND_LIVE_CARDS_SCRIPT = """
+            for (const sel of arguments[0]) {
+              let all = [];
+              try { all = Array.from(document.querySelectorAll(sel)); } catch (e) { continue; }
+              if (all.length > 0) return all.filter(c => !c.hasAttribute('data-cr-pruned'));
+            }
+            return [];
+            """;
+
+    private static final String PRUNE_SCRIPT = HOLLOW_FUNCTION + """
+            let pruned = 0;
+            for (const card of arguments[0]) {
+              if (hollow(card)) pruned++;
+            }
+            return pruned;
+            """;
+
+    private static final String STATS_SCRIPT = """
+            return {
+              nodes: document.getElementsByTagName('*').length,
+              heap: (performance.memory && performance.memory.usedJSHeapSize) || 0
+            };
+            """;
+
+    private final JavascriptExecutor js;
+    private final ScrapeMetrics metrics;
+    private final boolean enabled;
+    private long prunedTotal = 0;
+
+    public DomPruner(JavascriptExecutor js, ScrapeMetrics metrics, boolean enabled) {
+        this.js = js;
+        this.metrics = metrics;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Pruning is enabled with -Dprune=true.
+     */
+    public static DomPruner fromSystemProperties(JavascriptExecutor js, ScrapeMetrics metrics) {
+        return new DomPruner(js, metrics, Boolean.parseBoolean(System.getProperty("prune", "false")));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<WebElement> findLiveCards(List<String> cardSelectors) {
+        List<WebElement> cards = new ArrayList<>();
+        if (js.executeScript(FIND_LIVE_CARDS_SCRIPT, cardSelectors) instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof WebElement element) {
+                    cards.add(element);
+                }
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Hollows out the given cards in one round trip.
+     */
+    public void prune(List<WebElement> cards) {
+        if (!enabled || cards.isEmpty()) {
+            return;
+        }
+        if (js.executeScript(PRUNE_SCRIPT, cards) instanceof Number pruned) {
+            prunedTotal += pruned.longValue();
+        }
+    }
+
+    /**
+     * Records cards hollowed out by a page-side script.
+     */
+    public void pruned(long count) {
+        prunedTotal += count;
+    }
+
+    /**
+     * Logs the latency of the iteration that just finished. With pruning enabled or
+     * --metrics-port set, also samples DOM node count and JS heap (Chrome only); the
+     * sample walks the whole DOM, so default runs skip that extra round trip.
+     */
+    public void logIteration(long iterationNanos) {
+        if (!enabled && !metrics.isServed()) {
+            LOG.debug("Iteration took {} ms", iterationNanos / 1_000_000);
+            return;
+        }
+        long nodes = 0;
+        long heap = 0;
+        try {
+            if (js.executeScript(STATS_SCRIPT) instanceof Map<?, ?> stats) {
+                nodes = stats.get("nodes") instanceof Number n ? n.longValue() : 0;
+                heap = stats.get("heap") instanceof Number h ? h.longValue() : 0;
+            }
+        } catch (Exception e) {
+            LOG.debug("Could not sample page stats: {}", e.getMessage());
+        }
+        metrics.pageState(iterationNanos, nodes, heap);
+        String message = "Iteration took {} ms | DOM nodes: {} | JS heap: {} MB | pruned cards: {}";
+        Object[] args = {iterationNanos / 1_000_000, nodes, String.format("%.1f", heap / 1_048_576.0), prunedTotal};
+        if (enabled) {
+            LOG.info(message, args);
+        } else {
+            LOG.debug(message, args);
+        }
+    }
+}
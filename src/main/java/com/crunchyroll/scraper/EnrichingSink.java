@@ -0,0 +1,178 @@
+package com.crunchyroll.scraper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Enriches entries with series metadata on their way to a {@link LogFileExporter}.
+ * <p>
+ * Entries are buffered and looked up in batches, one lookup per distinct series in the
+ * batch, then written with a detail line carrying the series ID, episode count, episode
+ * runtime and the entry's watch time. On close a per-series summary with completion
+ * percentage and total watch time is appended. Metadata is series-level: the runtime is
+ * the series' typical episode runtime, not looked up per episode.
+ */
+public class EnrichingSink implements HistorySink {
+    private static final Logger LOG = LoggerFactory.getLogger(EnrichingSink.class);
+    public static final int DEFAULT_BUFFER_SIZE = 500;
+
+    private final LogFileExporter exporter;
+    private final SeriesMetadataCache cache;
+    private final int bufferSize;
+    private final List<HistoryEntry> buffer = new ArrayList<>();
+    private final Map<String, SeriesProgress> bySeries = new LinkedHashMap<>();
+    private boolean lookupFailed = false;
+
+    private static final class SeriesProgress {
+        int episodes;
+        double watchedFraction;
+    }
+
+    /**
+     * Per-series result of enrichment. Metadata is null if the source does not know the series.
+     */
+    public record SeriesSummary(String seriesTitle, SeriesMetadata metadata, int watchedEpisodes, double watchedFraction) {
+
+        public double completionPercent() {
+            if (metadata == null || metadata.totalEpisodes() <= 0) {
+                return 0;
+            }
+            return Math.min(100.0, watchedEpisodes * 100.0 / metadata.totalEpisodes());
+        }
+
+        public long watchTimeSeconds() {
+            return metadata != null ? Math.round(watchedFraction * metadata.episodeRuntimeSeconds()) : 0;
+        }
+
+        public String toSummaryLine() {
+            if (metadata == null) {
+                return String.format("%s: %d episodes watched (no metadata)", seriesTitle, watchedEpisodes);
+            }
+            long minutes = watchTimeSeconds() / 60;
+            return String.format("%s [%s]: %d/%d episodes (%.1f%%), watch time %dh %02dm",
+                    seriesTitle, metadata.seriesId(), watchedEpisodes, metadata.totalEpisodes(),
+                    completionPercent(), minutes / 60, minutes % 60);
+        }
+    }
+
+    public EnrichingSink(LogFileExporter exporter, SeriesMetadataCache cache) {
+        this(exporter, cache, DEFAULT_BUFFER_SIZE);
+    }
+
+    public EnrichingSink(LogFileExporter exporter, SeriesMetadataCache cache, int bufferSize) {
+        this.exporter = exporter;
+        this.cache = cache;
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    /**
+     * The export's fields plus series and progress for the summary.
+     */
+    @Override
+    public Set<HistoryField> requiredFields() {
+        Set<HistoryField> fields = EnumSet.of(HistoryField.SERIES, HistoryField.PROGRESS);
+        fields.addAll(exporter.requiredFields());
+        return fields;
+    }
+
+    @Override
+    public void accept(HistoryEntry entry) throws IOException {
+        buffer.add(entry);
+        if (entry.seriesTitle() != null) {
+            SeriesProgress progress = bySeries.computeIfAbsent(entry.seriesTitle(), k -> new SeriesProgress());
+            progress.episodes++;
+            progress.watchedFraction += progressFraction(entry.progress());
+        }
+        if (buffer.size() >= bufferSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Looks up the distinct series of the buffered entries and writes them in order.
+     * If the metadata source fails, the rest of the export is written without details.
+     */
+    private void flush() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        Map<String, SeriesMetadata> metadata = Map.of();
+        if (!lookupFailed) {
+            Set<String> titles = new LinkedHashSet<>();
+            for (HistoryEntry entry : buffer) {
+                titles.add(entry.seriesTitle());
+            }
+            try {
+                metadata = cache.getAll(titles);
+            } catch (IOException e) {
+                lookupFailed = true;
+                LOG.warn("Series metadata lookup failed, exporting without metadata: {}", e.getMessage());
+            }
+        }
+        for (HistoryEntry entry : buffer) {
+            SeriesMetadata series = entry.seriesTitle() != null ? metadata.get(entry.seriesTitle()) : null;
+            exporter.accept(entry, series != null ? detailLine(series, entry) : null);
+        }
+        buffer.clear();
+    }
+
+    static String detailLine(SeriesMetadata series, HistoryEntry entry) {
+        long watchedSeconds = Math.round(progressFraction(entry.progress()) * series.episodeRuntimeSeconds());
+        return String.format("Series: %s | %d episodes, %d min each | watched %d:%02d",
+                series.seriesId() != null ? series.seriesId() : "-", series.totalEpisodes(),
+                series.episodeRuntimeSeconds() / 60, watchedSeconds / 60, watchedSeconds % 60);
+    }
+
+    /**
+     * Entries without a progress value count as fully watched.
+     */
+    private static double progressFraction(String progress) {
+        if (progress == null || !progress.endsWith("%")) {
+            return 1.0;
+        }
+        try {
+            return Math.min(100.0, Double.parseDouble(progress.substring(0, progress.length() - 1))) / 100.0;
+        } catch (NumberFormatException e) {
+            return 1.0;
+        }
+    }
+
+    public List<SeriesSummary> summarize() throws IOException {
+        Map<String, SeriesMetadata> metadata = lookupFailed ? Map.of() : cache.getAll(bySeries.keySet());
+        List<SeriesSummary> summaries = new ArrayList<>();
+        for (Map.Entry<String, SeriesProgress> entry : bySeries.entrySet()) {
+            summaries.add(new SeriesSummary(entry.getKey(), metadata.get(entry.getKey()),
+                    entry.getValue().episodes, entry.getValue().watchedFraction));
+        }
+        return summaries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            try {
+                List<SeriesSummary> summaries = summarize();
+                exporter.setSummary("SERIES SUMMARY", summaries.stream().map(SeriesSummary::toSummaryLine).toList());
+                LOG.info("Enriched {} series", summaries.size());
+            } catch (IOException e) {
+                LOG.warn("Series enrichment failed, exporting without summary: {}", e.getMessage());
+            }
+        } finally {
+            try {
+                cache.close();
+            } finally {
+                exporter.close();
+            }
+        }
+    }
+}
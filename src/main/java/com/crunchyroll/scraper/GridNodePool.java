@@ -0,0 +1,219 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remote WebDriver endpoints (standalone Selenium servers or Grid hubs) that browser
+ * sessions are spread across.
+ * <p>
+ * Each {@link #acquire()} asks every endpoint for its /status in parallel and picks the one
+ * with the lowest share of busy slots. Sessions handed out by this pool but not yet visible
+ * in a status response are counted as busy too, so concurrent scrapes in one JVM do not all
+ * land on the same endpoint. Endpoints that are down or not ready are skipped.
+ * <p>
+ * Status requests run without holding the pool's lock; only picking the endpoint and
+ * counting the new session happen under it, so session starts and releases never wait
+ * on another caller's network I/O.
+ */
+public class GridNodePool {
+    private static final Logger LOG = LoggerFactory.getLogger(GridNodePool.class);
+    private static final Duration STATUS_TIMEOUT = Duration.ofSeconds(3);
+    private static volatile GridNodePool shared;
+
+    private final List<Node> nodes;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(STATUS_TIMEOUT)
+            .build();
+    private final Json json = new Json();
+
+    private static final class Node {
+        final URI uri;
+        // Guarded by the pool
+        int inFlight;
+
+        Node(URI uri) {
+            this.uri = uri;
+        }
+    }
+
+    /**
+     * Load reported by one endpoint; capacity is 0 if the endpoint cannot take sessions.
+     */
+    record Status(int busy, int capacity) {
+        static final Status UNAVAILABLE = new Status(0, 0);
+    }
+
+    /**
+     * A session slot on one endpoint; release it when the session has ended.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Node node;
+        private boolean released;
+
+        private Lease(Node node) {
+            this.node = node;
+        }
+
+        public URI uri() {
+            return node.uri;
+        }
+
+        @Override
+        public void close() {
+            synchronized (GridNodePool.this) {
+                if (!released) {
+                    released = true;
+                    node.inFlight--;
+                }
+            }
+        }
+    }
+
+    public GridNodePool(List<URI> endpoints) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one grid node is required");
+        }
+        List<Node> list = new ArrayList<>();
+        for (URI endpoint : endpoints) {
+            String base = endpoint.toString();
+            list.add(new Node(URI.create(base.endsWith("/") ? base.substring(0, base.length() - 1) : base)));
+        }
+        this.nodes = List.copyOf(list);
+    }
+
+    /**
+     * The JVM-wide pool for -Dgrid.nodes=URL[,URL...], or null if no nodes are configured.
+     */
+    public static GridNodePool shared() {
+        String config = System.getProperty("grid.nodes", "");
+        if (config.isBlank()) {
+            return null;
+        }
+        if (shared == null) {
+            synchronized (GridNodePool.class) {
+                if (shared == null) {
+                    List<URI> endpoints = new ArrayList<>();
+                    for (String part : config.split(",")) {
+                        if (!part.isBlank()) {
+                            endpoints.add(URI.create(part.trim()));
+                        }
+                    }
+                    shared = new GridNodePool(endpoints);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Picks the least loaded endpoint. Falls back to the one with the fewest sessions from
+     * this pool if no endpoint answers, so Grid can still queue the request.
+     */
+    public Lease acquire() {
+        List<CompletableFuture<Status>> requests = new ArrayList<>();
+        for (Node node : nodes) {
+            requests.add(fetchStatus(node.uri));
+        }
+        List<Status> statuses = requests.stream().map(CompletableFuture::join).toList();
+        return assign(statuses);
+    }
+
+    private synchronized Lease assign(List<Status> statuses) {
+        Node best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            Status status = statuses.get(i);
+            if (status.capacity() == 0) {
+                LOG.debug("Grid node {} is unavailable", node.uri);
+                continue;
+            }
+            double load = (double) Math.max(status.busy(), node.inFlight) / status.capacity();
+            LOG.debug("Grid node {}: {}/{} busy, {} from this pool", node.uri, status.busy(), status.capacity(), node.inFlight);
+            if (load < bestLoad) {
+                best = node;
+                bestLoad = load;
+            }
+        }
+
+        if (best == null) {
+            LOG.warn("No grid node reported ready, assigning by local session count");
+            for (Node node : nodes) {
+                if (best == null || node.inFlight < best.inFlight) {
+                    best = node;
+                }
+            }
+        } else if (bestLoad >= 1.0) {
+            LOG.info("All grid nodes are busy; the session request will queue on {}", best.uri);
+        }
+
+        best.inFlight++;
+        LOG.info("Assigned browser session to grid node {}", best.uri);
+        return new Lease(best);
+    }
+
+    private CompletableFuture<Status> fetchStatus(URI node) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/status"))
+                .timeout(STATUS_TIMEOUT)
+                .GET()
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> response.statusCode() == 200 ? parseStatus(response.body()) : Status.UNAVAILABLE)
+                .completeOnTimeout(Status.UNAVAILABLE, STATUS_TIMEOUT.toMillis() * 2, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> Status.UNAVAILABLE);
+    }
+
+    /**
+     * Reads {"value": {"ready": ..., "nodes": [{"availability", "slots": [{"session": ...}]}]}}
+     * as served by both standalone servers and Grid hubs.
+     */
+    Status parseStatus(String body) {
+        Map<String, Object> root;
+        try {
+            root = json.toType(body, Json.MAP_TYPE);
+        } catch (RuntimeException e) {
+            return Status.UNAVAILABLE;
+        }
+        if (!(root.get("value") instanceof Map<?, ?> value)) {
+            return Status.UNAVAILABLE;
+        }
+
+        int busy = 0;
+        int capacity = 0;
+        if (value.get("nodes") instanceof List<?> gridNodes) {
+            for (Object item : gridNodes) {
+                if (!(item instanceof Map<?, ?> node) || !"UP".equals(node.get("availability"))) {
+                    continue;
+                }
+                if (node.get("slots") instanceof List<?> slots) {
+                    for (Object slot : slots) {
+                        if (slot instanceof Map<?, ?> s) {
+                            capacity++;
+                            if (s.get("session") != null) {
+                                busy++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        // A full server reports ready=false but can still queue; only treat it as down without slots
+        if (capacity == 0 && !Boolean.TRUE.equals(value.get("ready"))) {
+            return Status.UNAVAILABLE;
+        }
+        return new Status(busy, Math.max(capacity, 1));
+    }
+}
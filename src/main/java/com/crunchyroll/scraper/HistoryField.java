@@ -0,0 +1,62 @@
+package com.crunchyroll.scraper;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Fields of a {@link HistoryEntry} that an export can be restricted to with --fields.
+ * Extraction skips the browser lookups for fields no sink needs.
+ */
+public enum HistoryField {
+    URL,
+    SERIES,
+    EPISODE,
+    SEASON,
+    EPISODE_NUMBER,
+    DATE,
+    PROGRESS;
+
+    public static final Set<HistoryField> ALL = Collections.unmodifiableSet(EnumSet.allOf(HistoryField.class));
+
+    /**
+     * Parses a comma-separated list such as "url,series,date" (case-insensitive,
+     * "episode-number" and "episode_number" both accepted).
+     */
+    public static Set<HistoryField> parse(String list) {
+        EnumSet<HistoryField> fields = EnumSet.noneOf(HistoryField.class);
+        for (String part : list.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String name = part.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            try {
+                fields.add(valueOf(name));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown field '" + part.trim() + "', expected one of " + ALL);
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No fields given, expected some of " + ALL);
+        }
+        return Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Returns the entry with every field outside the projection cleared.
+     */
+    public static HistoryEntry project(HistoryEntry entry, Set<HistoryField> fields) {
+        if (fields.containsAll(ALL)) {
+            return entry;
+        }
+        return new HistoryEntry(
+                fields.contains(SERIES) ? entry.seriesTitle() : null,
+                fields.contains(EPISODE) ? entry.episodeTitle() : null,
+                fields.contains(SEASON) ? entry.seasonInfo() : null,
+                fields.contains(EPISODE_NUMBER) ? entry.episodeNumber() : null,
+                fields.contains(DATE) ? entry.watchedDate() : null,
+                fields.contains(PROGRESS) ? entry.progress() : null,
+                fields.contains(URL) ? entry.url() : null);
+    }
+}
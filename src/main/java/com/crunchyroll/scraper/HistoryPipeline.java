@@ -0,0 +1,290 @@
+package com.crunchyroll.scraper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Staged processing between browser extraction and export:
+ * harvest -> parse (virtual threads) -> dedup -> sink.
+ * <p>
+ * Stages are connected by bounded queues, so a slow stage blocks its producers
+ * instead of buffering without limit. Each stage tracks its own throughput and
+ * input queue depth; {@link #logStats()} shows which stage is the bottleneck.
+ * <p>
+ * Every submitted item is numbered and the dedup stage restores that order
+ * after the parallel parse stage, so the sink sees entries in history order
+ * and the first copy of a duplicate is the one that is kept.
+ */
+public class HistoryPipeline implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(HistoryPipeline.class);
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final int DEFAULT_PARSE_WORKERS = 4;
+
+    private static final HistoryEntry ENTRY_END = new HistoryEntry(null, null, null, null, null, null, null);
+    /** Placeholder for a card that yielded no entry, so its sequence number is not waited for. */
+    private static final HistoryEntry SKIPPED = new HistoryEntry(null, null, null, null, null, null, null);
+
+    private record Numbered<T>(long seq, T value) {}
+
+    private final Numbered<CardSnapshot> rawEnd = new Numbered<>(-1, null);
+    private final Numbered<HistoryEntry> parsedEnd = new Numbered<>(-1, ENTRY_END);
+    private final BlockingQueue<Numbered<CardSnapshot>> rawQueue;
+    private final BlockingQueue<Numbered<HistoryEntry>> parsedQueue;
+    private final BlockingQueue<HistoryEntry> uniqueQueue;
+    private final HistorySink sink;
+    private final int parseWorkers;
+
+    private final Stage harvest;
+    private final Stage parse;
+    private final Stage dedup;
+    private final Stage store;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private boolean finished = false;
+
+    /**
+     * Per-stage counters. Throughput is measured from pipeline start.
+     */
+    public static final class Stage {
+        private final String name;
+        private final BlockingQueue<?> input;
+        private final AtomicLong processed = new AtomicLong();
+        private final long startNanos = System.nanoTime();
+
+        Stage(String name, BlockingQueue<?> input) {
+            this.name = name;
+            this.input = input;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long processed() {
+            return processed.get();
+        }
+
+        public int queueDepth() {
+            return input != null ? input.size() : 0;
+        }
+
+        public double throughput() {
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            return seconds > 0 ? processed.get() / seconds : 0;
+        }
+
+        @Override
+        public String toString() {
+            String queue = input != null ? queueDepth() + "/" + (queueDepth() + input.remainingCapacity()) : "-";
+            return String.format("%s: %d (%.1f/s, queue %s)", name, processed(), throughput(), queue);
+        }
+    }
+
+    public HistoryPipeline(HistorySink sink) {
+        this(sink, DEFAULT_QUEUE_CAPACITY, DEFAULT_PARSE_WORKERS);
+    }
+
+    public HistoryPipeline(HistorySink sink, int queueCapacity, int parseWorkers) {
+        this.sink = sink;
+        this.parseWorkers = Math.max(1, parseWorkers);
+        this.rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.uniqueQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.harvest = new Stage("harvest", null);
+        this.parse = new Stage("parse", rawQueue);
+        this.dedup = new Stage("dedup", parsedQueue);
+        this.store = new Stage("sink", uniqueQueue);
+
+        start();
+    }
+
+    private void start() {
+        List<Thread> parsers = new ArrayList<>();
+        for (int i = 0; i < parseWorkers; i++) {
+            parsers.add(Thread.ofVirtual().name("pipeline-parse-" + i).unstarted(this::runParse));
+        }
+        Thread dedupThread = Thread.ofVirtual().name("pipeline-dedup").unstarted(this::runDedup);
+        Thread sinkThread = Thread.ofVirtual().name("pipeline-sink").unstarted(this::runSink);
+
+        threads.addAll(parsers);
+        threads.add(dedupThread);
+        threads.add(sinkThread);
+        threads.forEach(Thread::start);
+    }
+
+    /**
+     * Hands a raw card to the parse stage, blocking while the stage is saturated.
+     * Safe to call from several threads; entries keep the order in which they were numbered.
+     */
+    public void submit(CardSnapshot card) throws InterruptedException {
+        rawQueue.put(new Numbered<>(submitted.getAndIncrement(), card));
+        harvest.processed.incrementAndGet();
+    }
+
+    /**
+     * Hands an already parsed entry straight to the dedup stage.
+     */
+    public void submit(HistoryEntry entry) throws InterruptedException {
+        parsedQueue.put(new Numbered<>(submitted.getAndIncrement(), entry));
+        harvest.processed.incrementAndGet();
+    }
+
+    private void runParse() {
+        try {
+            while (true) {
+                Numbered<CardSnapshot> card = rawQueue.take();
+                if (card == rawEnd) {
+                    return;
+                }
+                HistoryEntry entry = null;
+                try {
+                    entry = card.value().toEntry();
+                } catch (RuntimeException e) {
+                    LOG.debug("Error parsing card: {}", e.getMessage());
+                }
+                parsedQueue.put(new Numbered<>(card.seq(), entry != null ? entry : SKIPPED));
+                parse.processed.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Releases entries in submission order (parse workers finish out of order),
+     * then drops every URL that was already seen.
+     */
+    private void runDedup() {
+        Set<String> seenUrls = new HashSet<>();
+        Map<Long, HistoryEntry> reorder = new HashMap<>();
+        long next = 0;
+        try {
+            while (true) {
+                Numbered<HistoryEntry> item = parsedQueue.take();
+                if (item == parsedEnd) {
+                    if (!reorder.isEmpty()) {
+                        LOG.warn("{} entries arrived without their predecessors", reorder.size());
+                    }
+                    uniqueQueue.put(ENTRY_END);
+                    return;
+                }
+                reorder.put(item.seq(), item.value());
+                HistoryEntry entry;
+                while ((entry = reorder.remove(next)) != null) {
+                    next++;
+                    if (entry == SKIPPED) {
+                        continue;
+                    }
+                    if (entry.url() != null && seenUrls.add(entry.url())) {
+                        uniqueQueue.put(entry);
+                    }
+                    dedup.processed.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSink() {
+        try {
+            while (true) {
+                HistoryEntry entry = uniqueQueue.take();
+                if (entry == ENTRY_END) {
+                    return;
+                }
+                // After a sink failure keep draining so upstream stages never block
+                if (failure.get() == null) {
+                    try {
+                        sink.accept(entry);
+                    } catch (IOException e) {
+                        LOG.error("Sink failed: {}", e.getMessage());
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                store.processed.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of unique entries that reached the sink so far.
+     */
+    public long uniqueCount() {
+        return store.processed();
+    }
+
+    public List<Stage> stages() {
+        return List.of(harvest, parse, dedup, store);
+    }
+
+    public void logStats() {
+        LOG.info("Pipeline {}", String.join(" | ", stages().stream().map(Stage::toString).toList()));
+    }
+
+    /**
+     * Signals end of input, waits for every stage to drain and closes the sink.
+     * Also runs after the caller was interrupted: the interrupt is set aside while
+     * the entries gathered so far are written out, then restored.
+     *
+     * @throws IOException if the sink failed, or {@link InterruptedIOException} if
+     *                     interrupted again while draining
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        boolean interrupted = Thread.interrupted();
+        try {
+            for (int i = 0; i < parseWorkers; i++) {
+                rawQueue.put(rawEnd);
+            }
+            for (Thread thread : threads.subList(0, parseWorkers)) {
+                thread.join();
+            }
+            parsedQueue.put(parsedEnd);
+            for (Thread thread : threads.subList(parseWorkers, threads.size())) {
+                thread.join();
+            }
+            logStats();
+        } catch (InterruptedException e) {
+            interrupted = true;
+            throw new InterruptedIOException("Interrupted while draining pipeline");
+        } finally {
+            sink.close();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            finish();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.crunchyroll.scraper;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Final stage of the history pipeline: receives unique entries in order.
+ */
+public interface HistorySink extends AutoCloseable {
+
+    void accept(HistoryEntry entry) throws IOException;
+
+    /**
+     * Fields this sink writes or uses; extraction may leave all other fields null.
+     */
+    default Set<HistoryField> requiredFields() {
+        return HistoryField.ALL;
+    }
+
+    /**
+     * Completes the output after the last entry has been accepted.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,72 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches series metadata from a JSON endpoint.
+ * <p>
+ * Request: POST {"titles": [...]}. Response: {"data": [{"series_title", "series_id",
+ * "episode_count", "episode_runtime_ms"}]}. The test SyntheticHistoryServer serves a stub.
+ */
+public class HttpSeriesMetadataSource implements SeriesMetadataSource {
+    private final URI endpoint;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Json json = new Json();
+
+    public HttpSeriesMetadataSource(URI endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public Map<String, SeriesMetadata> fetch(Collection<String> seriesTitles) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.toJson(Map.of("titles", List.copyOf(seriesTitles)))))
+                .build();
+
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching series metadata", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Metadata request failed with HTTP " + response.statusCode());
+        }
+
+        Map<String, Object> root = json.toType(response.body(), Json.MAP_TYPE);
+        Map<String, SeriesMetadata> result = new HashMap<>();
+        if (root.get("data") instanceof List<?> items) {
+            for (Object item : items) {
+                if (item instanceof Map<?, ?> map && map.get("series_title") != null) {
+                    String title = map.get("series_title").toString();
+                    result.put(title, new SeriesMetadata(
+                            map.get("series_id") != null ? map.get("series_id").toString() : null,
+                            title,
+                            (int) number(map.get("episode_count")),
+                            number(map.get("episode_runtime_ms")) / 1000));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+}
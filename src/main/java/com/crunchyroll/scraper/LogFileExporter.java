@@ -0,0 +1,142 @@
+package com.crunchyroll.scraper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes history entries in the .crunchy.log text format.
+ * Entries are streamed to a temporary body file as they arrive; the header
+ * (which needs the total count) is written when the exporter is closed.
+ */
+public class LogFileExporter implements HistorySink {
+    private static final Logger LOG = LoggerFactory.getLogger(LogFileExporter.class);
+
+    private final Path outputPath;
+    private final Set<HistoryField> fields;
+    private Path bodyPath;
+    private BufferedWriter body;
+    private int count = 0;
+    private String summaryTitle;
+    private List<String> summaryLines = List.of();
+
+    public LogFileExporter(Path outputPath) {
+        this(outputPath, HistoryField.ALL);
+    }
+
+    /**
+     * Writes only the given fields of each entry.
+     */
+    public LogFileExporter(Path outputPath, Set<HistoryField> fields) {
+        this.outputPath = outputPath;
+        this.fields = fields;
+    }
+
+    @Override
+    public Set<HistoryField> requiredFields() {
+        return fields;
+    }
+
+    @Override
+    public void accept(HistoryEntry entry) throws IOException {
+        accept(entry, null);
+    }
+
+    /**
+     * Writes the entry followed by an indented detail line (after the URL, so imports
+     * that only read header and URL skip it). A null detail writes the entry alone.
+     */
+    public void accept(HistoryEntry entry, String detail) throws IOException {
+        if (body == null) {
+            openBody();
+        }
+        count++;
+        body.write(String.format("[%d] %s", count, HistoryField.project(entry, fields).toLogLine()));
+        body.newLine();
+        if (detail != null) {
+            body.write("    " + detail);
+            body.newLine();
+        }
+        body.newLine();
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Adds a titled section after the entries. Must be called before {@link #close()}.
+     */
+    public void setSummary(String title, List<String> lines) {
+        this.summaryTitle = title;
+        this.summaryLines = List.copyOf(lines);
+    }
+
+    private void openBody() throws IOException {
+        Path parent = outputPath.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        bodyPath = Files.createTempFile(parent, outputPath.getFileName().toString(), ".part");
+        body = Files.newBufferedWriter(bodyPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (body == null) {
+            openBody();
+        }
+        body.close();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(outputPath);
+             Reader entries = Files.newBufferedReader(bodyPath)) {
+            writer.write("=".repeat(80));
+            writer.newLine();
+            writer.write("CRUNCHYROLL WATCH HISTORY EXPORT");
+            writer.newLine();
+            writer.write("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+            writer.newLine();
+            writer.write("Total Entries: " + count);
+            writer.newLine();
+            writer.write("=".repeat(80));
+            writer.newLine();
+            writer.newLine();
+
+            entries.transferTo(writer);
+
+            if (summaryTitle != null) {
+                writer.write("=".repeat(80));
+                writer.newLine();
+                writer.write(summaryTitle);
+                writer.newLine();
+                writer.write("=".repeat(80));
+                writer.newLine();
+                for (String line : summaryLines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+                writer.newLine();
+            }
+
+            writer.write("=".repeat(80));
+            writer.newLine();
+            writer.write("END OF EXPORT");
+            writer.newLine();
+            writer.write("=".repeat(80));
+            writer.newLine();
+        } finally {
+            Files.deleteIfExists(bodyPath);
+        }
+
+        LOG.info("History exported to: {}", outputPath.toAbsolutePath());
+    }
+}
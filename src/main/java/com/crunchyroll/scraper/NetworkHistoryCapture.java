@@ -0,0 +1,211 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.v119.network.Network;
+import org.openqa.selenium.devtools.v119.network.model.RequestId;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Captures the watch-history JSON the history page fetches for itself and decodes it
+ * straight into {@link HistoryEntry} records, bypassing DOM extraction.
+ * <p>
+ * DevTools listeners only record which responses finished loading; the response bodies
+ * are fetched in {@link #drain()} on the scraping thread, since sending CDP commands from
+ * inside a listener can block the connection.
+ */
+public class NetworkHistoryCapture implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkHistoryCapture.class);
+    public static final String DEFAULT_URL_PATTERN = "watch-history";
+
+    private final DevTools devTools;
+    private final String urlPattern;
+    private final Map<RequestId, String> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<RequestId> finished = new ConcurrentLinkedQueue<>();
+    private final Json json = new Json();
+    private long responsesDecoded = 0;
+
+    NetworkHistoryCapture(DevTools devTools, String urlPattern) {
+        this.devTools = devTools;
+        this.urlPattern = urlPattern;
+    }
+
+    /**
+     * Subscribes to network responses whose URL contains the given pattern.
+     */
+    public static NetworkHistoryCapture attach(DevTools devTools, String urlPattern) {
+        NetworkHistoryCapture capture = new NetworkHistoryCapture(devTools, urlPattern);
+        capture.install();
+        return capture;
+    }
+
+    private void install() {
+        devTools.send(Network.enable(Optional.empty(), Optional.empty(), Optional.empty()));
+        devTools.addListener(Network.responseReceived(), event -> {
+            String url = event.getResponse().getUrl();
+            if (url.contains(urlPattern) && event.getResponse().getStatus() == 200) {
+                pending.put(event.getRequestId(), url);
+            }
+        });
+        devTools.addListener(Network.loadingFinished(), event -> {
+            if (pending.containsKey(event.getRequestId())) {
+                finished.add(event.getRequestId());
+            }
+        });
+        LOG.info("Capturing history responses matching '{}'", urlPattern);
+    }
+
+    /**
+     * Fetches and decodes all history responses that finished loading since the last call.
+     * Watch URLs are built like the page's own links (see {@link #watchBase(String)}), so they
+     * match the URLs of DOM extraction and earlier exports.
+     *
+     * @param pageUrl URL of the history page, or null to use the API origin without a locale
+     */
+    public List<HistoryEntry> drain(String pageUrl) {
+        List<HistoryEntry> entries = new ArrayList<>();
+        RequestId requestId;
+        while ((requestId = finished.poll()) != null) {
+            String url = pending.remove(requestId);
+            if (url == null) {
+                continue;
+            }
+            try {
+                Network.GetResponseBodyResponse response = devTools.send(Network.getResponseBody(requestId));
+                String body = response.getBase64Encoded()
+                        ? new String(Base64.getDecoder().decode(response.getBody()), StandardCharsets.UTF_8)
+                        : response.getBody();
+                List<HistoryEntry> decoded = decode(body, pageUrl != null ? watchBase(pageUrl) : origin(url));
+                responsesDecoded++;
+                LOG.debug("Decoded {} entries from {}", decoded.size(), url);
+                entries.addAll(decoded);
+            } catch (Exception e) {
+                LOG.warn("Could not read history response {}: {}", url, e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    public long responsesDecoded() {
+        return responsesDecoded;
+    }
+
+    /**
+     * Decodes a watch-history payload ({"data": [{"panel": {...}, "date_played": ...}]}).
+     * Watch URLs are built as base + "/watch/" + id + "/" + slug.
+     */
+    public List<HistoryEntry> decode(String body, String base) {
+        Map<String, Object> root = json.toType(body, Json.MAP_TYPE);
+        List<HistoryEntry> entries = new ArrayList<>();
+        if (!(root.get("data") instanceof List<?> items)) {
+            return entries;
+        }
+        for (Object item : items) {
+            if (item instanceof Map<?, ?> map) {
+                HistoryEntry entry = toEntry(map, base);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static HistoryEntry toEntry(Map<?, ?> item, String base) {
+        Map<?, ?> panel = item.get("panel") instanceof Map<?, ?> p ? p : Map.of();
+        Map<?, ?> meta = panel.get("episode_metadata") instanceof Map<?, ?> m ? m : Map.of();
+
+        String id = string(panel.get("id"));
+        if (id == null) {
+            id = string(item.get("id"));
+        }
+        String slug = string(panel.get("slug_title"));
+        String url = id != null ? base + "/watch/" + id + (slug != null ? "/" + slug : "") : null;
+
+        String seriesTitle = string(meta.get("series_title"));
+        String episodeTitle = string(panel.get("title"));
+
+        String seasonInfo = string(meta.get("season_title"));
+        if (seasonInfo == null && meta.get("season_number") != null) {
+            seasonInfo = "S" + number(meta.get("season_number"));
+        }
+
+        String episode = string(meta.get("episode"));
+        if (episode == null && meta.get("episode_number") != null) {
+            episode = String.valueOf(number(meta.get("episode_number")));
+        }
+        String episodeNumber = episode != null ? "E" + episode : null;
+
+        String watchedDate = string(item.get("date_played"));
+        if (watchedDate != null && watchedDate.length() >= 10) {
+            watchedDate = watchedDate.substring(0, 10);
+        }
+
+        String progress = null;
+        if (Boolean.TRUE.equals(item.get("fully_watched"))) {
+            progress = "100%";
+        } else if (item.get("playhead") != null && meta.get("duration_ms") != null) {
+            long durationMs = number(meta.get("duration_ms"));
+            if (durationMs > 0) {
+                long percent = Math.min(100, number(item.get("playhead")) * 1000 * 100 / durationMs);
+                progress = percent + "%";
+            }
+        }
+
+        if (url == null && seriesTitle == null) {
+            return null;
+        }
+        return new HistoryEntry(seriesTitle, episodeTitle, seasonInfo, episodeNumber, watchedDate, progress, url);
+    }
+
+    /**
+     * Origin plus locale prefix of a history page URL, the base its watch links share:
+     * https://www.crunchyroll.com/de/history gives https://www.crunchyroll.com/de.
+     */
+    static String watchBase(String pageUrl) {
+        URI uri = URI.create(pageUrl);
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+        int history = path.indexOf("/history");
+        return origin(pageUrl) + (history > 0 ? path.substring(0, history) : "");
+    }
+
+    private static String origin(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+
+    private static String string(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static long number(Object value) {
+        if (value instanceof Number n) {
+            return n.longValue();
+        }
+        try {
+            return Long.parseLong(String.valueOf(value).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        LOG.info("Decoded {} history responses", responsesDecoded);
+    }
+}
@@ -0,0 +1,175 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.v119.fetch.Fetch;
+import org.openqa.selenium.devtools.v119.fetch.model.RequestPattern;
+import org.openqa.selenium.devtools.v119.fetch.model.RequestStage;
+import org.openqa.selenium.devtools.v119.network.Network;
+import org.openqa.selenium.devtools.v119.network.model.ErrorReason;
+import org.openqa.selenium.devtools.v119.network.model.ResourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Blocks heavy resources (images, media, fonts, analytics) via Chrome DevTools Protocol.
+ * <p>
+ * Resource types are intercepted with the Fetch domain at the request stage and failed
+ * before they leave the browser, so blocked requests cost no round trip. Analytics hosts
+ * are blocked outright via Network.setBlockedURLs.
+ */
+public class ResourceBlocker implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceBlocker.class);
+
+    private static final List<String> ANALYTICS_PATTERNS = List.of(
+            "*google-analytics.com*",
+            "*googletagmanager.com*",
+            "*doubleclick.net*",
+            "*connect.facebook.net*",
+            "*scorecardresearch.com*",
+            "*hotjar.com*",
+            "*segment.io*",
+            "*cdn.segment.com*",
+            "*amplitude.com*",
+            "*nr-data.net*",
+            "*js-agent.newrelic.com*"
+    );
+
+    private final DevTools devTools;
+    private final Policy policy;
+    private final Map<String, AtomicLong> blockedByType = new ConcurrentHashMap<>();
+    private final AtomicLong bytesTransferred = new AtomicLong();
+
+    /**
+     * What to block. Configured via -Dblock.resources=image,media,font,analytics
+     * and optional extra URL patterns via -Dblock.urls=*example.com*,...
+     */
+    public record Policy(Set<ResourceType> resourceTypes, boolean blockAnalytics, List<String> urlPatterns) {
+
+        public static Policy none() {
+            return new Policy(Set.of(), false, List.of());
+        }
+
+        public static Policy fromSystemProperties() {
+            Set<ResourceType> types = new LinkedHashSet<>();
+            boolean analytics = false;
+            for (String name : split(System.getProperty("block.resources", ""))) {
+                switch (name.toLowerCase(Locale.ROOT)) {
+                    case "image", "images" -> types.add(ResourceType.IMAGE);
+                    case "media" -> types.add(ResourceType.MEDIA);
+                    case "font", "fonts" -> types.add(ResourceType.FONT);
+                    case "stylesheet", "css" -> types.add(ResourceType.STYLESHEET);
+                    case "analytics" -> analytics = true;
+                    default -> LOG.warn("Unknown resource type to block: {}", name);
+                }
+            }
+            return new Policy(types, analytics, split(System.getProperty("block.urls", "")));
+        }
+
+        private static List<String> split(String value) {
+            return Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .toList();
+        }
+
+        public boolean isEnabled() {
+            return !resourceTypes.isEmpty() || blockAnalytics || !urlPatterns.isEmpty();
+        }
+
+        List<String> blockedUrls() {
+            List<String> urls = new ArrayList<>(urlPatterns);
+            if (blockAnalytics) {
+                urls.addAll(ANALYTICS_PATTERNS);
+            }
+            return urls;
+        }
+    }
+
+    private ResourceBlocker(DevTools devTools, Policy policy) {
+        this.devTools = devTools;
+        this.policy = policy;
+    }
+
+    /**
+     * Installs the blocking rules on an open DevTools session.
+     */
+    public static ResourceBlocker attach(DevTools devTools, Policy policy) {
+        ResourceBlocker blocker = new ResourceBlocker(devTools, policy);
+        blocker.install();
+        return blocker;
+    }
+
+    private void install() {
+        devTools.send(Network.enable(Optional.empty(), Optional.empty(), Optional.empty()));
+
+        devTools.addListener(Network.loadingFinished(), event ->
+                bytesTransferred.addAndGet(event.getEncodedDataLength().longValue()));
+        devTools.addListener(Network.loadingFailed(), event -> {
+            if (event.getBlockedReason().isPresent()) {
+                count("blocked-url");
+            }
+        });
+
+        List<String> blockedUrls = policy.blockedUrls();
+        if (!blockedUrls.isEmpty()) {
+            devTools.send(Network.setBlockedURLs(blockedUrls));
+        }
+
+        if (!policy.resourceTypes().isEmpty()) {
+            List<RequestPattern> patterns = policy.resourceTypes().stream()
+                    .map(type -> new RequestPattern(Optional.of("*"), Optional.of(type), Optional.of(RequestStage.REQUEST)))
+                    .toList();
+            devTools.addListener(Fetch.requestPaused(), paused -> {
+                count(paused.getResourceType().toString());
+                try {
+                    devTools.send(Fetch.failRequest(paused.getRequestId(), ErrorReason.BLOCKEDBYCLIENT));
+                } catch (Exception e) {
+                    LOG.debug("Could not block {}: {}", paused.getRequest().getUrl(), e.getMessage());
+                }
+            });
+            devTools.send(Fetch.enable(Optional.of(patterns), Optional.of(false)));
+        }
+
+        LOG.info("Resource blocking enabled: types={}, analytics={}, extra patterns={}",
+                policy.resourceTypes(), policy.blockAnalytics(), policy.urlPatterns());
+    }
+
+    private void count(String type) {
+        blockedByType.computeIfAbsent(type, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long blockedRequests() {
+        return blockedByType.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public long bytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    public void logSummary() {
+        LOG.info("Blocked {} requests {}, transferred {} KB", blockedRequests(), blockedByType, bytesTransferred() / 1024);
+    }
+
+    @Override
+    public void close() {
+        logSummary();
+        try {
+            if (!policy.resourceTypes().isEmpty()) {
+                devTools.send(Fetch.disable());
+            }
+        } catch (Exception e) {
+            LOG.debug("Could not disable request interception: {}", e.getMessage());
+        }
+    }
+}
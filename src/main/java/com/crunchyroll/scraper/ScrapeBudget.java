@@ -0,0 +1,155 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Time budgets for a scheduled run: a total budget counted from process start, a budget
+ * per scroll iteration and a timeout for every single WebDriver command.
+ * <p>
+ * A small reserve at the end of the total budget is kept for writing the export: scrape loops
+ * and waits stop when only the reserve is left, then export what they have gathered.
+ * All budgets are off unless configured.
+ */
+public final class ScrapeBudget {
+    private static final Logger LOG = LoggerFactory.getLogger(ScrapeBudget.class);
+    private static final Duration DEFAULT_ITERATION = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_COMMAND = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_RESERVE = Duration.ofSeconds(5);
+
+    private final Instant deadline;
+    private final Instant stopAt;
+    private final Duration iteration;
+    private final Duration command;
+    private Instant iterationDeadline = Instant.MAX;
+    private boolean exhaustedLogged = false;
+
+    /**
+     * @param deadline  end of the total budget, or null for none
+     * @param reserve   time kept free before the deadline for writing the export
+     * @param iteration budget per scroll iteration, or null for none
+     * @param command   timeout per WebDriver command, or null to keep the driver defaults
+     */
+    public ScrapeBudget(Instant deadline, Duration reserve, Duration iteration, Duration command) {
+        this.deadline = deadline;
+        this.stopAt = deadline != null ? deadline.minus(reserve) : null;
+        this.iteration = iteration;
+        this.command = command;
+    }
+
+    /**
+     * Reads -Dbudget.total.seconds, -Dbudget.reserve.seconds, -Dbudget.iteration.seconds and
+     * -Dbudget.command.seconds. Setting a total budget turns on the iteration and command budgets
+     * with 30 s defaults; the reserve defaults to 5 s and never exceeds a quarter of the total.
+     */
+    public static ScrapeBudget fromSystemProperties() {
+        long total = Long.parseLong(System.getProperty("budget.total.seconds", "0"));
+        long iteration = Long.parseLong(System.getProperty("budget.iteration.seconds",
+                total > 0 ? String.valueOf(DEFAULT_ITERATION.toSeconds()) : "0"));
+        long command = Long.parseLong(System.getProperty("budget.command.seconds",
+                total > 0 || iteration > 0 ? String.valueOf(DEFAULT_COMMAND.toSeconds()) : "0"));
+        Duration reserve = Duration.ofSeconds(Long.parseLong(System.getProperty("budget.reserve.seconds",
+                String.valueOf(DEFAULT_RESERVE.toSeconds()))));
+        Duration quarter = Duration.ofMillis(total * 250);
+        if (reserve.compareTo(quarter) > 0) {
+            reserve = quarter;
+        }
+
+        Instant started = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+        return new ScrapeBudget(
+                total > 0 ? started.plusSeconds(total) : null,
+                reserve,
+                iteration > 0 ? Duration.ofSeconds(iteration) : null,
+                command > 0 ? Duration.ofSeconds(command) : null);
+    }
+
+    public boolean isEnabled() {
+        return deadline != null || iteration != null || command != null;
+    }
+
+    /**
+     * Read timeout for the WebDriver HTTP client, or null to keep Selenium's default.
+     */
+    public Duration commandTimeout() {
+        return command;
+    }
+
+    /**
+     * Remaining total budget minus the export reserve; very large if there is no total budget.
+     */
+    public Duration remaining() {
+        if (stopAt == null) {
+            return Duration.ofDays(365);
+        }
+        Duration left = Duration.between(Instant.now(), stopAt);
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+
+    /**
+     * True once only the export reserve is left. Logs the first time so the partial export is explained.
+     */
+    public boolean exhausted() {
+        if (stopAt == null) {
+            return false;
+        }
+        boolean exhausted = remaining().isZero();
+        if (exhausted && !exhaustedLogged) {
+            exhaustedLogged = true;
+            LOG.warn("Time budget used up, stopping and exporting the entries gathered so far");
+        }
+        return exhausted;
+    }
+
+    public void startIteration() {
+        iterationDeadline = iteration != null ? Instant.now().plus(iteration) : Instant.MAX;
+        if (stopAt != null && stopAt.isBefore(iterationDeadline)) {
+            iterationDeadline = stopAt;
+        }
+    }
+
+    public boolean iterationExpired() {
+        return Instant.now().isAfter(iterationDeadline);
+    }
+
+    /**
+     * Shortens a wait so that it ends with the total budget.
+     */
+    public Duration cap(Duration timeout) {
+        Duration left = remaining();
+        return timeout.compareTo(left) > 0 ? left : timeout;
+    }
+
+    /**
+     * Sleeps for the given time, but never past the end of the total budget.
+     */
+    public void sleep(long millis) throws InterruptedException {
+        long capped = Math.min(millis, remaining().toMillis());
+        if (capped > 0) {
+            Thread.sleep(capped);
+        }
+    }
+
+    /**
+     * Bounds the driver for the scraping phase: no implicit waits (every lookup either
+     * finds its element or fails at once) and page-load/script timeouts within budget.
+     */
+    public void apply(WebDriver driver) {
+        if (!isEnabled()) {
+            return;
+        }
+        Duration limit = command != null ? cap(command) : remaining();
+        Duration timeout = limit.isZero() ? Duration.ofSeconds(1) : limit;
+        WebDriver.Timeouts timeouts = driver.manage().timeouts();
+        timeouts.implicitlyWait(Duration.ZERO);
+        timeouts.pageLoadTimeout(timeout);
+        timeouts.scriptTimeout(timeout);
+        LOG.info("Time budget: {} s left, {} s per iteration, {} s per WebDriver command",
+                stopAt != null ? remaining().toSeconds() : "unlimited",
+                iteration != null ? iteration.toSeconds() : "unlimited",
+                command != null ? command.toSeconds() : "default");
+    }
+}
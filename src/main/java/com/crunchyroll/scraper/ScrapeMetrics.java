@@ -0,0 +1,202 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters and gauges for a running scrape, rendered in Prometheus text format.
+ * A single process-wide instance is shared by the scraper loops and {@link MetricsServer}.
+ */
+public final class ScrapeMetrics {
+    private static final ScrapeMetrics GLOBAL = new ScrapeMetrics();
+
+    private final AtomicLong entriesFound = new AtomicLong();
+    private final AtomicLong scrollIterations = new AtomicLong();
+    private final AtomicLong noProgressCount = new AtomicLong();
+    private final AtomicLong scrapeStartNanos = new AtomicLong();
+    private final AtomicLong lastProgressMillis = new AtomicLong();
+    private final AtomicLong lastIterationNanos = new AtomicLong();
+    private final AtomicLong domNodes = new AtomicLong();
+    private final AtomicLong jsHeapBytes = new AtomicLong();
+    private final Map<String, CommandStats> commands = new ConcurrentHashMap<>();
+    private volatile boolean served = false;
+
+    private static final class CommandStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+
+    ScrapeMetrics() {
+    }
+
+    public static ScrapeMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Marks the metrics as exported by a {@link MetricsServer}, so optional samples
+     * that cost a browser round trip are worth taking.
+     */
+    void markServed() {
+        served = true;
+    }
+
+    public boolean isServed() {
+        return served;
+    }
+
+    public void scrapeStarted() {
+        scrapeStartNanos.set(System.nanoTime());
+        lastProgressMillis.set(System.currentTimeMillis());
+        entriesFound.set(0);
+        noProgressCount.set(0);
+    }
+
+    /**
+     * Records one scroll/extract iteration of a scrape loop.
+     */
+    public void iteration(long entries, int noProgress) {
+        scrollIterations.incrementAndGet();
+        if (entriesFound.getAndSet(entries) != entries) {
+            lastProgressMillis.set(System.currentTimeMillis());
+        }
+        noProgressCount.set(noProgress);
+    }
+
+    /**
+     * Records the extraction latency of the last iteration and the page size after it.
+     */
+    public void pageState(long iterationNanos, long nodes, long heapBytes) {
+        lastIterationNanos.set(iterationNanos);
+        domNodes.set(nodes);
+        jsHeapBytes.set(heapBytes);
+    }
+
+    public double entriesPerSecond() {
+        long start = scrapeStartNanos.get();
+        if (start == 0) {
+            return 0;
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return seconds > 0 ? entriesFound.get() / seconds : 0;
+    }
+
+    /**
+     * Wraps a driver so every WebDriver and WebElement call is timed.
+     */
+    public WebDriver instrument(WebDriver driver) {
+        return new EventFiringDecorator<>(new CommandTimer()).decorate(driver);
+    }
+
+    private final class CommandTimer implements WebDriverListener {
+        private final ThreadLocal<Long> started = new ThreadLocal<>();
+
+        @Override
+        public void beforeAnyCall(Object target, Method method, Object[] args) {
+            started.set(System.nanoTime());
+        }
+
+        @Override
+        public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+            record(method, false);
+        }
+
+        @Override
+        public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+            record(method, true);
+        }
+
+        private void record(Method method, boolean error) {
+            Long start = started.get();
+            if (start == null) {
+                return;
+            }
+            started.remove();
+            CommandStats stats = commands.computeIfAbsent(method.getName(), k -> new CommandStats());
+            stats.count.increment();
+            stats.nanos.add(System.nanoTime() - start);
+            if (error) {
+                stats.errors.increment();
+            }
+        }
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder(2048);
+        gauge(sb, "crunchy_entries_found", "Unique history entries found so far", entriesFound.get());
+        gauge(sb, "crunchy_entries_per_second", "Entries found per second since the scrape started", entriesPerSecond());
+        counter(sb, "crunchy_scroll_iterations_total", "Scroll/extract iterations", scrollIterations.get());
+        gauge(sb, "crunchy_no_progress_iterations", "Consecutive iterations without new entries", noProgressCount.get());
+        gauge(sb, "crunchy_last_progress_timestamp_seconds", "Unix time of the last iteration that found new entries",
+                lastProgressMillis.get() / 1000.0);
+        gauge(sb, "crunchy_iteration_seconds", "Extraction latency of the last scroll iteration",
+                lastIterationNanos.get() / 1_000_000_000.0);
+        gauge(sb, "crunchy_browser_dom_nodes", "Elements in the history page DOM", domNodes.get());
+        gauge(sb, "crunchy_browser_js_heap_bytes", "Used JS heap of the history page (Chrome only)", jsHeapBytes.get());
+
+        sb.append("# HELP crunchy_webdriver_command_seconds WebDriver command latency\n");
+        sb.append("# TYPE crunchy_webdriver_command_seconds summary\n");
+        Map<String, CommandStats> sorted = new TreeMap<>(commands);
+        for (Map.Entry<String, CommandStats> entry : sorted.entrySet()) {
+            String label = "{command=\"" + escapeLabel(entry.getKey()) + "\"}";
+            sb.append("crunchy_webdriver_command_seconds_count").append(label).append(' ')
+                    .append(entry.getValue().count.sum()).append('\n');
+            sb.append("crunchy_webdriver_command_seconds_sum").append(label).append(' ')
+                    .append(entry.getValue().nanos.sum() / 1_000_000_000.0).append('\n');
+        }
+        sb.append("# HELP crunchy_webdriver_command_errors_total WebDriver commands that threw\n");
+        sb.append("# TYPE crunchy_webdriver_command_errors_total counter\n");
+        for (Map.Entry<String, CommandStats> entry : sorted.entrySet()) {
+            sb.append("crunchy_webdriver_command_errors_total{command=\"").append(escapeLabel(entry.getKey())).append("\"} ")
+                    .append(entry.getValue().errors.sum()).append('\n');
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        gauge(sb, "jvm_memory_heap_used_bytes", "Used JVM heap", heap.getUsed());
+        gauge(sb, "jvm_memory_heap_committed_bytes", "Committed JVM heap", heap.getCommitted());
+        gauge(sb, "jvm_memory_heap_max_bytes", "Maximum JVM heap", heap.getMax());
+        return sb.toString();
+    }
+
+    /**
+     * Escapes a label value as the exposition format requires: backslash, double quote and newline.
+     */
+    static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, double value) {
+        metric(sb, name, help, "gauge", value);
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, double value) {
+        metric(sb, name, help, "counter", value);
+    }
+
+    private static void metric(StringBuilder sb, String name, String help, String type, double value) {
+        sb.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        sb.append(name).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,12 @@
+package com.crunchyroll.scraper;
+
+/**
+ * Series-level metadata used to enrich history entries.
+ */
+public record SeriesMetadata(
+        String seriesId,
+        String seriesTitle,
+        int totalEpisodes,
+        long episodeRuntimeSeconds
+) {
+}
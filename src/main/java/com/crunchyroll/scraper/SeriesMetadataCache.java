@@ -0,0 +1,217 @@
+package com.crunchyroll.scraper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Two-tier cache in front of a {@link SeriesMetadataSource}: an in-memory LRU backed by a
+ * TSV file on disk whose records expire after a TTL. Lookups are deduplicated by title and
+ * misses are fetched in batches, so cost scales with distinct series rather than entries.
+ * Titles the source does not know are cached as negative entries with the same TTL, so
+ * they are not requested again on every run.
+ */
+public class SeriesMetadataCache implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SeriesMetadataCache.class);
+    public static final int DEFAULT_MEMORY_CAPACITY = 1000;
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final Duration DEFAULT_TTL = Duration.ofDays(7);
+    /** Marks a title the source did not know; stored on disk with an episode count of -1. */
+    private static final SeriesMetadata UNKNOWN = new SeriesMetadata(null, "", -1, 0);
+
+    private final SeriesMetadataSource source;
+    private final Path diskPath;
+    private final Duration ttl;
+    private final int batchSize;
+    private final Map<String, SeriesMetadata> memory;
+    private final Map<String, DiskRecord> disk = new HashMap<>();
+    private boolean diskDirty = false;
+
+    private long memoryHits = 0;
+    private long diskHits = 0;
+    private long negativeHits = 0;
+    private long fetched = 0;
+    private long sourceRequests = 0;
+
+    private record DiskRecord(SeriesMetadata metadata, Instant fetchedAt) {}
+
+    public SeriesMetadataCache(SeriesMetadataSource source, Path diskPath, Duration ttl, int memoryCapacity, int batchSize) {
+        this.source = source;
+        this.diskPath = diskPath;
+        this.ttl = ttl;
+        this.batchSize = Math.max(1, batchSize);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SeriesMetadata> eldest) {
+                return size() > memoryCapacity;
+            }
+        };
+        loadDisk();
+    }
+
+    /**
+     * Returns metadata for every title the cache or the source knows about.
+     * Titles without metadata are absent from the result.
+     */
+    public synchronized Map<String, SeriesMetadata> getAll(Collection<String> seriesTitles) throws IOException {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String title : seriesTitles) {
+            if (title != null && !title.isBlank()) {
+                distinct.add(title);
+            }
+        }
+
+        Map<String, SeriesMetadata> result = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        Instant now = Instant.now();
+        for (String title : distinct) {
+            String key = key(title);
+            SeriesMetadata cached = memory.get(key);
+            if (cached == null) {
+                DiskRecord record = disk.get(key);
+                if (record != null && !isExpired(record, now)) {
+                    diskHits++;
+                    cached = record.metadata();
+                    memory.put(key, cached);
+                }
+            } else {
+                memoryHits++;
+            }
+            if (cached == UNKNOWN) {
+                negativeHits++;
+                continue;
+            }
+            if (cached != null) {
+                result.put(title, cached);
+                continue;
+            }
+            misses.add(title);
+        }
+
+        for (int i = 0; i < misses.size(); i += batchSize) {
+            List<String> batch = misses.subList(i, Math.min(misses.size(), i + batchSize));
+            sourceRequests++;
+            Map<String, SeriesMetadata> loaded = new HashMap<>();
+            for (Map.Entry<String, SeriesMetadata> entry : source.fetch(batch).entrySet()) {
+                loaded.put(key(entry.getKey()), entry.getValue());
+            }
+            for (String title : batch) {
+                SeriesMetadata metadata = loaded.get(key(title));
+                if (metadata != null) {
+                    result.put(title, metadata);
+                    fetched++;
+                } else {
+                    metadata = UNKNOWN;
+                }
+                String key = key(title);
+                memory.put(key, metadata);
+                disk.put(key, new DiskRecord(metadata, now));
+                diskDirty = true;
+            }
+        }
+        return result;
+    }
+
+    private boolean isExpired(DiskRecord record, Instant now) {
+        return record.fetchedAt().plus(ttl).isBefore(now);
+    }
+
+    private static String key(String title) {
+        return title.trim().toLowerCase(java.util.Locale.ROOT);
+    }
+
+    private void loadDisk() {
+        if (diskPath == null || !Files.exists(diskPath)) {
+            return;
+        }
+        Instant now = Instant.now();
+        int expired = 0;
+        try (BufferedReader reader = Files.newBufferedReader(diskPath)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 6) {
+                    continue;
+                }
+                try {
+                    int episodes = Integer.parseInt(fields[3]);
+                    SeriesMetadata metadata = episodes < 0 ? UNKNOWN
+                            : new SeriesMetadata(emptyToNull(fields[1]), fields[2], episodes, Long.parseLong(fields[4]));
+                    DiskRecord record = new DiskRecord(metadata, Instant.ofEpochSecond(Long.parseLong(fields[5])));
+                    if (isExpired(record, now)) {
+                        expired++;
+                        diskDirty = true;
+                    } else {
+                        disk.put(fields[0], record);
+                    }
+                } catch (NumberFormatException e) {
+                    LOG.debug("Skipping malformed cache line: {}", line);
+                }
+            }
+            LOG.info("Loaded {} series from metadata cache ({} expired)", disk.size(), expired);
+        } catch (IOException e) {
+            LOG.warn("Could not read metadata cache {}: {}", diskPath, e.getMessage());
+        }
+    }
+
+    private void saveDisk() throws IOException {
+        if (diskPath == null || !diskDirty) {
+            return;
+        }
+        Path parent = diskPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, diskPath.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            for (Map.Entry<String, DiskRecord> entry : disk.entrySet()) {
+                SeriesMetadata m = entry.getValue().metadata();
+                writer.write(String.join("\t",
+                        clean(entry.getKey()),
+                        m.seriesId() != null ? clean(m.seriesId()) : "",
+                        clean(m.seriesTitle()),
+                        String.valueOf(m.totalEpisodes()),
+                        String.valueOf(m.episodeRuntimeSeconds()),
+                        String.valueOf(entry.getValue().fetchedAt().getEpochSecond())));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, diskPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        diskDirty = false;
+    }
+
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    public void logStats() {
+        LOG.info("Metadata cache: {} memory hits, {} disk hits, {} known unknown, {} fetched in {} source requests",
+                memoryHits, diskHits, negativeHits, fetched, sourceRequests);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        logStats();
+        saveDisk();
+    }
+}
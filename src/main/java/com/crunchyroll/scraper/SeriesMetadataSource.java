@@ -0,0 +1,17 @@
+package com.crunchyroll.scraper;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Looks up series metadata by series title.
+ * Implementations receive whole batches so they can answer with one request.
+ */
+public interface SeriesMetadataSource {
+
+    /**
+     * Returns metadata for the titles that are known to the source, keyed by the requested title.
+     */
+    Map<String, SeriesMetadata> fetch(Collection<String> seriesTitles) throws IOException;
+}
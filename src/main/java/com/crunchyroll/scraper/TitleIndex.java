@@ -0,0 +1,423 @@
+package com.crunchyroll.scraper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fuzzy search over series and episode titles using a trigram index.
+ * <p>
+ * Titles are normalized (case, diacritics, German umlauts and their ae/oe/ue spellings) and
+ * split into padded word trigrams. A query only touches the posting lists of its own
+ * trigrams and ranks titles by the Dice coefficient of the shared trigrams, so lookups do
+ * not scan the entries. Each distinct title is indexed once and points to its entries.
+ */
+public final class TitleIndex {
+    private static final int MAGIC = 0x43525449; // "CRTI"
+    private static final int VERSION = 1;
+    public static final double DEFAULT_MIN_SCORE = 0.3;
+
+    public enum Field { SERIES, EPISODE }
+
+    /**
+     * A matching title, its Dice score and the entries carrying it.
+     */
+    public record Match(String title, Field field, double score, List<HistoryEntry> entries) {}
+
+    private final HistoryEntry[] entries;
+    private final String[] titles;
+    private final Field[] fields;
+    private final int[] trigramCounts;
+    private final int[][] titleEntries;
+    // Sorted trigram keys with the title ids containing each trigram
+    private final long[] keys;
+    private final int[][] postings;
+
+    private TitleIndex(HistoryEntry[] entries, String[] titles, Field[] fields, int[] trigramCounts,
+                       int[][] titleEntries, long[] keys, int[][] postings) {
+        this.entries = entries;
+        this.titles = titles;
+        this.fields = fields;
+        this.trigramCounts = trigramCounts;
+        this.titleEntries = titleEntries;
+        this.keys = keys;
+        this.postings = postings;
+    }
+
+    public static TitleIndex build(Collection<HistoryEntry> source) {
+        HistoryEntry[] entries = source.toArray(new HistoryEntry[0]);
+        Map<String, List<Integer>> byTitle = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i++) {
+            addTitle(byTitle, Field.SERIES, entries[i].seriesTitle(), i);
+            addTitle(byTitle, Field.EPISODE, entries[i].episodeTitle(), i);
+        }
+
+        int count = byTitle.size();
+        String[] titles = new String[count];
+        Field[] fields = new Field[count];
+        int[] trigramCounts = new int[count];
+        int[][] titleEntries = new int[count][];
+        long[][] titleTrigrams = new long[count][];
+        Map<Long, Integer> postingSizes = new HashMap<>();
+
+        int id = 0;
+        for (Map.Entry<String, List<Integer>> title : byTitle.entrySet()) {
+            fields[id] = Field.values()[title.getKey().charAt(0) - '0'];
+            titles[id] = title.getKey().substring(1);
+            titleEntries[id] = title.getValue().stream().mapToInt(Integer::intValue).toArray();
+            titleTrigrams[id] = trigrams(titles[id]);
+            trigramCounts[id] = titleTrigrams[id].length;
+            for (long trigram : titleTrigrams[id]) {
+                postingSizes.merge(trigram, 1, Integer::sum);
+            }
+            id++;
+        }
+
+        // Two passes: size every posting list, then fill them in title order so they stay sorted
+        long[] keys = postingSizes.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int[][] postings = new int[keys.length][];
+        for (int k = 0; k < keys.length; k++) {
+            postings[k] = new int[postingSizes.get(keys[k])];
+        }
+        int[] filled = new int[keys.length];
+        for (int title = 0; title < count; title++) {
+            for (long trigram : titleTrigrams[title]) {
+                int k = Arrays.binarySearch(keys, trigram);
+                postings[k][filled[k]++] = title;
+            }
+            titleTrigrams[title] = null;
+        }
+        return new TitleIndex(entries, titles, fields, trigramCounts, titleEntries, keys, postings);
+    }
+
+    private static void addTitle(Map<String, List<Integer>> byTitle, Field field, String title, int entry) {
+        if (title == null || title.isBlank()) {
+            return;
+        }
+        byTitle.computeIfAbsent(field.ordinal() + title.trim(), k -> new ArrayList<>()).add(entry);
+    }
+
+    public int entryCount() {
+        return entries.length;
+    }
+
+    public int titleCount() {
+        return titles.length;
+    }
+
+    public List<Match> search(String query, int limit) {
+        return search(query, limit, DEFAULT_MIN_SCORE);
+    }
+
+    /**
+     * Returns up to limit titles with a Dice score of at least minScore, best first.
+     */
+    public List<Match> search(String query, int limit, double minScore) {
+        long[] queryTrigrams = trigrams(query);
+        if (queryTrigrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        int[][] lists = new int[queryTrigrams.length][];
+        int listCount = 0;
+        for (long trigram : queryTrigrams) {
+            int slot = Arrays.binarySearch(keys, trigram);
+            if (slot >= 0) {
+                lists[listCount++] = postings[slot];
+            }
+        }
+        Arrays.sort(lists, 0, listCount, (a, b) -> Integer.compare(a.length, b.length));
+
+        // Dice = 2c / (q + t) with c <= t, so reaching minScore takes c >= minScore * q / (2 - minScore)
+        // shared trigrams. Such a title must appear in one of the rarest (q - minShared + 1) lists;
+        // the remaining, most frequent lists are only probed for titles that are already candidates.
+        int minShared = Math.max(1, (int) Math.ceil(minScore * queryTrigrams.length / (2 - minScore)));
+        int scanLists = Math.min(listCount, queryTrigrams.length - minShared + 1);
+
+        int[] shared = new int[titles.length];
+        int[] touched = new int[Math.min(titles.length, 1024)];
+        int touchedCount = 0;
+        for (int l = 0; l < scanLists; l++) {
+            for (int title : lists[l]) {
+                if (shared[title]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touched.length * 2);
+                    }
+                    touched[touchedCount++] = title;
+                }
+            }
+        }
+        for (int l = scanLists; l < listCount; l++) {
+            int[] list = lists[l];
+            if ((long) touchedCount * 20 < list.length) {
+                for (int i = 0; i < touchedCount; i++) {
+                    if (Arrays.binarySearch(list, touched[i]) >= 0) {
+                        shared[touched[i]]++;
+                    }
+                }
+            } else {
+                for (int title : list) {
+                    if (shared[title] > 0) {
+                        shared[title]++;
+                    }
+                }
+            }
+        }
+
+        // Keep only the best `limit` titles; ties go to the title with more entries
+        int[] best = new int[Math.min(limit, touchedCount)];
+        double[] bestScores = new double[best.length];
+        int bestCount = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int title = touched[i];
+            double score = 2.0 * shared[title] / (queryTrigrams.length + trigramCounts[title]);
+            if (score < minScore || (bestCount == best.length && !ranksBefore(title, score, best[bestCount - 1], bestScores[bestCount - 1]))) {
+                continue;
+            }
+            int pos = bestCount < best.length ? bestCount++ : bestCount - 1;
+            while (pos > 0 && ranksBefore(title, score, best[pos - 1], bestScores[pos - 1])) {
+                best[pos] = best[pos - 1];
+                bestScores[pos] = bestScores[pos - 1];
+                pos--;
+            }
+            best[pos] = title;
+            bestScores[pos] = score;
+        }
+
+        List<Match> matches = new ArrayList<>(bestCount);
+        for (int i = 0; i < bestCount; i++) {
+            matches.add(new Match(titles[best[i]], fields[best[i]], bestScores[i], entriesOf(best[i])));
+        }
+        return matches;
+    }
+
+    private boolean ranksBefore(int title, double score, int other, double otherScore) {
+        return score != otherScore ? score > otherScore : titleEntries[title].length > titleEntries[other].length;
+    }
+
+    private List<HistoryEntry> entriesOf(int title) {
+        int[] ids = titleEntries[title];
+        List<HistoryEntry> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(entries[id]);
+        }
+        return result;
+    }
+
+    /**
+     * Lowercases, folds German umlauts (ä, ae -> a; ö, oe -> o; ü, ue -> u; ß -> ss),
+     * strips other diacritics and reduces everything but letters and digits to single spaces.
+     * Folding both spellings the same way lets "Maedchen", "Madchen" and "Mädchen" meet.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT)
+                .replace("ß", "ss")
+                .replace("ä", "a").replace("ö", "o").replace("ü", "u")
+                .replace("ae", "a").replace("oe", "o").replace("ue", "u");
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int length = sb.length();
+        return length > 0 && sb.charAt(length - 1) == ' ' ? sb.substring(0, length - 1) : sb.toString();
+    }
+
+    /**
+     * Distinct trigrams of each word padded as "  word ", packed into longs.
+     */
+    static long[] trigrams(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        long[] result = new long[normalized.length() * 2 + 4];
+        int count = 0;
+        for (String word : normalized.split(" ")) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+                result[count++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            }
+        }
+        long[] sorted = Arrays.copyOf(result, count);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    /**
+     * Writes the index atomically in a compact binary format.
+     */
+    public void save(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(entries.length);
+            for (HistoryEntry entry : entries) {
+                writeNullable(out, entry.seriesTitle());
+                writeNullable(out, entry.episodeTitle());
+                writeNullable(out, entry.seasonInfo());
+                writeNullable(out, entry.episodeNumber());
+                writeNullable(out, entry.watchedDate());
+                writeNullable(out, entry.progress());
+                writeNullable(out, entry.url());
+            }
+
+            out.writeInt(titles.length);
+            for (int i = 0; i < titles.length; i++) {
+                out.writeUTF(titles[i]);
+                out.writeByte(fields[i].ordinal());
+                out.writeInt(trigramCounts[i]);
+                writeSortedInts(out, titleEntries[i]);
+            }
+
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                out.writeLong(keys[i]);
+                writeSortedInts(out, postings[i]);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static TitleIndex load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a title index: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported title index version " + version + " in " + path);
+            }
+
+            HistoryEntry[] entries = new HistoryEntry[in.readInt()];
+            // Entries repeat the same series and season strings; share one instance each
+            Map<String, String> strings = new HashMap<>();
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = new HistoryEntry(
+                        readNullable(in, strings), readNullable(in, null), readNullable(in, strings),
+                        readNullable(in, null), readNullable(in, null), readNullable(in, strings),
+                        readNullable(in, null));
+            }
+
+            int titleCount = in.readInt();
+            String[] titles = new String[titleCount];
+            Field[] fields = new Field[titleCount];
+            int[] trigramCounts = new int[titleCount];
+            int[][] titleEntries = new int[titleCount][];
+            for (int i = 0; i < titleCount; i++) {
+                titles[i] = in.readUTF();
+                fields[i] = Field.values()[in.readByte()];
+                trigramCounts[i] = in.readInt();
+                titleEntries[i] = readSortedInts(in);
+            }
+
+            int keyCount = in.readInt();
+            long[] keys = new long[keyCount];
+            int[][] postings = new int[keyCount][];
+            for (int i = 0; i < keyCount; i++) {
+                keys[i] = in.readLong();
+                postings[i] = readSortedInts(in);
+            }
+            return new TitleIndex(entries, titles, fields, trigramCounts, titleEntries, keys, postings);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in, Map<String, String> strings) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String value = in.readUTF();
+        return strings != null ? strings.computeIfAbsent(value, v -> v) : value;
+    }
+
+    /**
+     * Writes an ascending id list as varint-encoded gaps.
+     */
+    private static void writeSortedInts(DataOutputStream out, int[] values) throws IOException {
+        writeVarInt(out, values.length);
+        int previous = 0;
+        for (int value : values) {
+            writeVarInt(out, value - previous);
+            previous = value;
+        }
+    }
+
+    private static int[] readSortedInts(DataInputStream in) throws IOException {
+        int[] values = new int[readVarInt(in)];
+        int previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            previous += readVarInt(in);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.crunchyroll.scraper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BrowserManagerTest {
+    private static final long QUEUED_MS = 1500;
+
+    private HttpServer server;
+    private URL url;
+
+    /**
+     * A Grid whose new-session requests wait in the queue and whose commands are slow as well.
+     */
+    @BeforeEach
+    void startGrid() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/session", exchange -> {
+            sleep();
+            if (exchange.getRequestURI().getPath().equals("/session")) {
+                respond(exchange, "{\"value\": {\"sessionId\": \"s1\", \"capabilities\": {\"browserName\": \"chrome\"}}}");
+            } else {
+                respond(exchange, "{\"value\": \"http://example.com/\"}");
+            }
+        });
+        server.start();
+        url = URI.create("http://127.0.0.1:" + server.getAddress().getPort()).toURL();
+    }
+
+    @AfterEach
+    void stopGrid() {
+        server.stop(0);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(QUEUED_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @Test
+    void queuedNewSessionOutlastsTheCommandTimeout() {
+        RemoteWebDriver driver = new RemoteWebDriver(
+                BrowserManager.remoteExecutor(url, Duration.ofSeconds(1), Duration.ofSeconds(10)), new MutableCapabilities());
+        assertEquals("s1", driver.getSessionId().toString());
+        // Ordinary commands still give up after the command timeout
+        assertThrows(RuntimeException.class, driver::getCurrentUrl);
+    }
+
+    @Test
+    void newSessionTimeoutStillApplies() {
+        assertThrows(RuntimeException.class, () -> new RemoteWebDriver(
+                BrowserManager.remoteExecutor(url, Duration.ofSeconds(10), Duration.ofSeconds(1)), new MutableCapabilities()));
+    }
+}
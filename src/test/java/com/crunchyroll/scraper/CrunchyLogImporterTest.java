@@ -0,0 +1,76 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CrunchyLogImporterTest {
+    @TempDir
+    Path dir;
+
+    private static final String URL = "https://www.crunchyroll.com/de/watch/GR3VWXP96/episode-5";
+
+    @Test
+    void parsesFullHeader() {
+        HistoryEntry entry = CrunchyLogImporter.parseHeader(
+                "[12] [2025-12-06] Jujutsu Kaisen - S2 - E5: Shibuya Incident (59%)", URL);
+        assertEquals(new HistoryEntry("Jujutsu Kaisen", "Shibuya Incident", "S2", "E5", "2025-12-06", "59%", URL), entry);
+    }
+
+    @Test
+    void keepsDashesAndColonsInsideTitles() {
+        HistoryEntry entry = CrunchyLogImporter.parseHeader(
+                "[1] [2025-01-01] Re:ZERO -Starting Life in Another World- - Staffel 3 - Folge 4: Teil 1: Der Anfang", URL);
+        assertEquals("Re:ZERO -Starting Life in Another World-", entry.seriesTitle());
+        assertEquals("Staffel 3", entry.seasonInfo());
+        assertEquals("Folge 4", entry.episodeNumber());
+        assertEquals("Teil 1: Der Anfang", entry.episodeTitle());
+    }
+
+    @Test
+    void seriesTitleWithDashIsNotMistakenForSeason() {
+        HistoryEntry entry = CrunchyLogImporter.parseHeader("[3] [2025-01-01] Mob Psycho 100 - Reigen: Awakening", URL);
+        assertEquals("Mob Psycho 100 - Reigen", entry.seriesTitle());
+        assertNull(entry.seasonInfo());
+        assertNull(entry.episodeNumber());
+        assertEquals("Awakening", entry.episodeTitle());
+    }
+
+    @Test
+    void unknownPlaceholdersBecomeNull() {
+        HistoryEntry entry = CrunchyLogImporter.parseHeader("[7] [Unknown Date] Unknown Series", URL);
+        assertEquals(new HistoryEntry(null, null, null, null, null, null, URL), entry);
+        assertNull(CrunchyLogImporter.parseHeader("[7] [Unknown Date] Unknown Series", null));
+    }
+
+    @Test
+    void progressOnlyWhenPercent() {
+        HistoryEntry entry = CrunchyLogImporter.parseHeader("[2] [2025-01-01] Dr. Stone - E3: Stone Wars (Part 2)", URL);
+        assertNull(entry.progress());
+        assertEquals("Stone Wars (Part 2)", entry.episodeTitle());
+    }
+
+    @Test
+    void roundTripsExporterOutput() throws Exception {
+        List<HistoryEntry> entries = List.of(
+                new HistoryEntry("Frieren: Beyond Journey's End", "Ein stiller Tag", "S1", "E12", "2025-12-06", "100%", URL),
+                new HistoryEntry("Bocchi the Rock!", null, null, null, null, null, URL + "x"),
+                new HistoryEntry("Oshi no Ko", "Reunion", "Season 2", "Episode 3", "2025-11-30", null, URL + "y"));
+        Path file = dir.resolve("export.crunchy.log");
+        try (LogFileExporter exporter = new LogFileExporter(file)) {
+            for (HistoryEntry entry : entries) {
+                exporter.accept(entry);
+            }
+        }
+
+        List<HistoryEntry> imported = new ArrayList<>();
+        assertEquals(3, new CrunchyLogImporter(1).importFile(file, imported::add));
+        assertEquals(entries, imported);
+    }
+}
@@ -0,0 +1,61 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrunchyrollHistoryScraperTest {
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void useUpBudget() {
+        // Counted from process start, so a 1 s budget is over before the test runs
+        System.setProperty("budget.total.seconds", "1");
+        System.setProperty("diagnostics.dir", dir.resolve("diagnostics").toString());
+    }
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty("budget.total.seconds");
+        System.clearProperty("diagnostics.dir");
+    }
+
+    private static List<HistoryEntry> imported(Path file) throws Exception {
+        List<HistoryEntry> entries = new ArrayList<>();
+        new CrunchyLogImporter(1).importFile(file, entries::add);
+        return entries;
+    }
+
+    @Test
+    void budgetUsedUpDuringLoginStillWritesTheExport() throws Exception {
+        StubWebDriver driver = new StubWebDriver();
+        Path output = dir.resolve("login.crunchy.log");
+
+        new CrunchyrollHistoryScraper(driver, "user@example.com", "secret", "Profile", output).run();
+
+        assertTrue(Files.exists(output));
+        assertEquals(List.of(), imported(output));
+        assertEquals(1, driver.visited.size(), "history page is skipped once the budget is gone: " + driver.visited);
+    }
+
+    @Test
+    void budgetUsedUpWaitingForHistoryPageStillWritesTheExport() throws Exception {
+        StubWebDriver driver = new StubWebDriver();
+        Path output = dir.resolve("manual.crunchy.log");
+
+        new CrunchyrollHistoryScraper(driver, output).runManual();
+
+        assertTrue(Files.exists(output));
+        assertEquals(List.of(), imported(output));
+    }
+}
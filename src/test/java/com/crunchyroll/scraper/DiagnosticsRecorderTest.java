@@ -0,0 +1,108 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiagnosticsRecorderTest {
+    @TempDir
+    Path dir;
+
+    private final StubWebDriver driver = new StubWebDriver();
+
+    /**
+     * File names in the output directory without their timestamps, e.g. "history_page.url.txt".
+     */
+    private List<String> written() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString().replaceFirst("_\\d+\\.", "."))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path single(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(suffix)).findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    void checkpointsOnlyRecordTheUrlWithoutDebug() throws IOException {
+        driver.currentUrl = "https://www.crunchyroll.com/de/history";
+        DiagnosticsRecorder recorder = new DiagnosticsRecorder(driver, dir, 8, false);
+        recorder.capture("history_page");
+        recorder.flush();
+        recorder.close();
+
+        assertEquals(0, driver.screenshots);
+        assertEquals(0, driver.pageSources);
+        assertEquals(List.of("history_page.url.txt"), written());
+        assertEquals(driver.currentUrl, Files.readString(single(".url.txt")).trim());
+    }
+
+    @Test
+    void nothingIsWrittenWithoutFailureOrDebug() throws IOException {
+        DiagnosticsRecorder recorder = new DiagnosticsRecorder(driver, dir, 8, false);
+        recorder.capture("before_scraping");
+        recorder.captureProblem("captcha_detected");
+        recorder.close();
+
+        assertEquals(List.of(), written());
+    }
+
+    @Test
+    void flushWritesScreenshotAndCompressedDom() throws IOException {
+        driver.pageSource = "<html><body>Verify you are human</body></html>";
+        DiagnosticsRecorder recorder = new DiagnosticsRecorder(driver, dir, 8, false);
+        recorder.captureFailure("login_failed");
+        recorder.close();
+
+        assertEquals(List.of("login_failed.html.gz", "login_failed.png"), written());
+        assertArrayEquals(StubWebDriver.SCREENSHOT, Files.readAllBytes(single(".png")));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(single(".html.gz")))) {
+            assertEquals(driver.pageSource, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void ringBufferKeepsOnlyTheNewestSnapshots() throws IOException {
+        DiagnosticsRecorder recorder = new DiagnosticsRecorder(driver, dir, 3, false);
+        for (int i = 0; i < 5; i++) {
+            recorder.captureProblem("problem" + i);
+        }
+        recorder.flush();
+        recorder.close();
+
+        List<String> files = written();
+        assertEquals(6, files.size(), files.toString());
+        assertFalse(files.stream().anyMatch(f -> f.startsWith("problem0") || f.startsWith("problem1")), files.toString());
+        assertTrue(files.containsAll(List.of("problem2.png", "problem3.png", "problem4.png", "problem4.html.gz")));
+    }
+
+    @Test
+    void debugTakesFullSnapshotsAndWritesThemOnClose() throws IOException {
+        DiagnosticsRecorder recorder = new DiagnosticsRecorder(driver, dir, 8, true);
+        recorder.capture("before_scraping");
+        recorder.close();
+
+        assertEquals(1, driver.screenshots);
+        assertEquals(List.of("before_scraping.html.gz", "before_scraping.png"), written());
+    }
+}
@@ -0,0 +1,72 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Scrolls the synthetic history site in headless Chrome with pruning on and checks that
+ * infinite scroll keeps loading until every entry was exported. Skipped without Chrome.
+ */
+@EnabledIf("chromeInstalled")
+class DomPrunerTest {
+    private static final int ENTRIES = 400;
+
+    @TempDir
+    Path dir;
+
+    static boolean chromeInstalled() {
+        Stream<Path> onPath = Stream.of(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+                .filter(p -> !p.isBlank())
+                .flatMap(p -> Stream.of("google-chrome", "google-chrome-stable", "chromium", "chromium-browser")
+                        .map(name -> Path.of(p, name)));
+        Stream<Path> macOs = Stream.of(Path.of("/Applications/Google Chrome.app/Contents/MacOS/Google Chrome"));
+        return Stream.concat(onPath, macOs).anyMatch(Files::isExecutable);
+    }
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty("prune");
+        System.clearProperty("pipeline");
+    }
+
+    private List<HistoryEntry> scrape(SyntheticHistoryServer.Variant variant, boolean pipeline) throws Exception {
+        System.setProperty("prune", "true");
+        System.setProperty("pipeline", String.valueOf(pipeline));
+        Path output = dir.resolve(variant + "-" + pipeline + ".crunchy.log");
+        try (SyntheticHistoryServer server = new SyntheticHistoryServer(0, ENTRIES, 50, 0, variant);
+             BrowserManager browser = new BrowserManager(true, ResourceBlocker.Policy.none(), null)) {
+            WebDriver driver = browser.initChrome();
+            new CrunchyrollHistoryScraper(driver, output).runDirect(server.baseUrl());
+        }
+        List<HistoryEntry> entries = new ArrayList<>();
+        new CrunchyLogImporter(1).importFile(output, entries::add);
+        return entries;
+    }
+
+    @Test
+    void prunedSequentialScrollReachesEveryEntry() throws Exception {
+        List<HistoryEntry> entries = scrape(SyntheticHistoryServer.Variant.DATA_T, false);
+        assertEquals(ENTRIES, entries.size());
+        assertEquals(ENTRIES, new HashSet<>(entries.stream().map(HistoryEntry::url).toList()).size());
+    }
+
+    @Test
+    void prunedPipelinedScrollReachesEveryEntry() throws Exception {
+        List<HistoryEntry> entries = scrape(SyntheticHistoryServer.Variant.CLASS, true);
+        assertEquals(ENTRIES, entries.size());
+        assertEquals(ENTRIES, new HashSet<>(entries.stream().map(HistoryEntry::url).toList()).size());
+    }
+}
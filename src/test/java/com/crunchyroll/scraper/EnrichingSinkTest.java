@@ -0,0 +1,53 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnrichingSinkTest {
+    @TempDir
+    Path dir;
+
+    private static HistoryEntry entry(String series, int episode, String progress) {
+        return new HistoryEntry(series, "Episode " + episode, "S1", "E" + episode, "2025-01-0" + episode, progress,
+                "https://www.crunchyroll.com/de/watch/G" + series.length() + episode + "/episode-" + episode);
+    }
+
+    @Test
+    void writesSeriesDetailsPerEntryAndLooksUpEachSeriesOnce() throws Exception {
+        SeriesMetadataCacheTest.RecordingSource source = new SeriesMetadataCacheTest.RecordingSource();
+        Path output = dir.resolve("out.crunchy.log");
+        List<HistoryEntry> entries = List.of(
+                entry("Frieren", 1, "50%"),
+                entry("Unknown Show", 2, null),
+                entry("Frieren", 3, "100%"),
+                entry("Frieren", 4, null));
+
+        try (EnrichingSink sink = new EnrichingSink(new LogFileExporter(output),
+                new SeriesMetadataCache(source, dir.resolve("cache.tsv"), Duration.ofDays(1), 10, 50), 2)) {
+            for (HistoryEntry entry : entries) {
+                sink.accept(entry);
+            }
+        }
+
+        assertEquals(List.of(List.of("Frieren", "Unknown Show")), source.batches);
+        String export = Files.readString(output);
+        assertTrue(export.contains("    Series: G7 | 24 episodes, 24 min each | watched 12:00"), export);
+        assertTrue(export.contains("    Series: G7 | 24 episodes, 24 min each | watched 24:00"), export);
+        assertEquals(3, export.split("Series: G7", -1).length - 1, "one detail line per known entry");
+        assertTrue(export.contains("Frieren [G7]: 3/24 episodes (12.5%), watch time 1h 00m"), export);
+        assertTrue(export.contains("Unknown Show: 1 episodes watched (no metadata)"), export);
+
+        List<HistoryEntry> imported = new ArrayList<>();
+        new CrunchyLogImporter(1).importFile(output, imported::add);
+        assertEquals(entries.stream().map(HistoryEntry::url).toList(), imported.stream().map(HistoryEntry::url).toList());
+    }
+}
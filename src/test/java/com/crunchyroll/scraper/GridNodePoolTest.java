@@ -0,0 +1,124 @@
+package com.crunchyroll.scraper;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GridNodePoolTest {
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    private static String status(boolean ready, int busy, int capacity) {
+        StringBuilder slots = new StringBuilder();
+        for (int i = 0; i < capacity; i++) {
+            slots.append(i > 0 ? "," : "").append(i < busy ? "{\"session\": {\"sessionId\": \"s" + i + "\"}}" : "{\"session\": null}");
+        }
+        return "{\"value\": {\"ready\": " + ready + ", \"nodes\": [{\"availability\": \"UP\", \"slots\": [" + slots + "]}]}}";
+    }
+
+    /**
+     * A node answering /status with the given body after the given delay.
+     */
+    private URI stub(String body, long delayMs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/status", exchange -> {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = body.getBytes();
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    private static URI unreachable() {
+        return URI.create("http://127.0.0.1:9");
+    }
+
+    @Test
+    void parsesStandaloneAndGridStatus() {
+        GridNodePool pool = new GridNodePool(List.of(unreachable()));
+        assertEquals(new GridNodePool.Status(1, 4), pool.parseStatus(status(true, 1, 4)));
+        assertEquals(new GridNodePool.Status(4, 4), pool.parseStatus(status(false, 4, 4)), "full but can queue");
+        assertEquals(GridNodePool.Status.UNAVAILABLE, pool.parseStatus("{\"value\": {\"ready\": false}}"));
+        assertEquals(GridNodePool.Status.UNAVAILABLE, pool.parseStatus("not json"));
+        assertEquals(new GridNodePool.Status(0, 1), pool.parseStatus("{\"value\": {\"ready\": true}}"));
+        assertEquals(new GridNodePool.Status(0, 2), pool.parseStatus("""
+                {"value": {"ready": true, "nodes": [
+                  {"availability": "DOWN", "slots": [{"session": {}}]},
+                  {"availability": "UP", "slots": [{"session": null}, {"session": null}]}]}}
+                """));
+    }
+
+    @Test
+    void picksLeastLoadedNodeAndCountsOwnSessions() throws IOException {
+        URI busy = stub(status(true, 2, 4), 0);
+        URI idle = stub(status(true, 0, 4), 0);
+        GridNodePool pool = new GridNodePool(List.of(busy, idle, unreachable()));
+
+        GridNodePool.Lease first = pool.acquire();
+        GridNodePool.Lease second = pool.acquire();
+        // Sessions from this pool count as busy before the node reports them: 2/4 each, first wins
+        GridNodePool.Lease third = pool.acquire();
+        assertEquals(idle.toString(), first.uri() + "/");
+        assertEquals(idle.toString(), second.uri() + "/");
+        assertEquals(busy.toString(), third.uri() + "/");
+
+        first.close();
+        first.close();
+        assertEquals(idle.toString(), pool.acquire().uri() + "/", "released slot is reused once");
+    }
+
+    @Test
+    void fallsBackToFewestSessionsWhenNoNodeAnswers() {
+        URI a = unreachable();
+        URI b = URI.create("http://127.0.0.1:10");
+        GridNodePool pool = new GridNodePool(List.of(a, b));
+        assertEquals(a, pool.acquire().uri());
+        assertEquals(b, pool.acquire().uri());
+    }
+
+    @Test
+    void statusRequestsDoNotBlockOtherCallers() throws Exception {
+        URI slow = stub(status(true, 0, 4), 1500);
+        GridNodePool pool = new GridNodePool(List.of(slow));
+        GridNodePool.Lease held = pool.acquire();
+
+        long start = System.nanoTime();
+        CompletableFuture<GridNodePool.Lease> a = CompletableFuture.supplyAsync(pool::acquire);
+        CompletableFuture<GridNodePool.Lease> b = CompletableFuture.supplyAsync(pool::acquire);
+        Thread.sleep(200);
+        long closeStart = System.nanoTime();
+        held.close();
+        long closeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - closeStart);
+        a.get(10, TimeUnit.SECONDS);
+        b.get(10, TimeUnit.SECONDS);
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(closeMillis < 500, "release waited " + closeMillis + " ms");
+        assertTrue(totalMillis < 2500, "concurrent acquires took " + totalMillis + " ms");
+    }
+}
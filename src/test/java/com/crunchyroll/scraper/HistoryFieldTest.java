@@ -0,0 +1,44 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryFieldTest {
+    private static final HistoryEntry ENTRY = new HistoryEntry("Blue Lock", "Dream", "S1", "E1", "2025-01-01", "42%",
+            "https://www.crunchyroll.com/de/watch/G1/dream");
+
+    @Test
+    void parsesCaseInsensitiveListsWithBothSeparators() {
+        assertEquals(EnumSet.of(HistoryField.URL, HistoryField.SERIES, HistoryField.EPISODE_NUMBER),
+                HistoryField.parse(" url,Series,, episode-number "));
+        assertEquals(EnumSet.of(HistoryField.EPISODE_NUMBER), HistoryField.parse("EPISODE_NUMBER"));
+    }
+
+    @Test
+    void rejectsUnknownAndEmptyLists() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class, () -> HistoryField.parse("url,title"));
+        assertTrue(unknown.getMessage().contains("'title'"), unknown.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> HistoryField.parse(" , "));
+    }
+
+    @Test
+    void projectClearsFieldsOutsideTheSelection() {
+        Set<HistoryField> fields = EnumSet.of(HistoryField.URL, HistoryField.SERIES, HistoryField.PROGRESS);
+        assertEquals(new HistoryEntry("Blue Lock", null, null, null, null, "42%", ENTRY.url()),
+                HistoryField.project(ENTRY, fields));
+        assertSame(ENTRY, HistoryField.project(ENTRY, HistoryField.ALL));
+    }
+
+    @Test
+    void projectedEntriesStillWriteAValidLogLine() {
+        HistoryEntry projected = HistoryField.project(ENTRY, EnumSet.of(HistoryField.URL, HistoryField.DATE));
+        assertEquals("[2025-01-01] Unknown Series\n    URL: " + ENTRY.url(), projected.toLogLine());
+    }
+}
@@ -0,0 +1,164 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryPipelineTest {
+
+    /**
+     * Collects accepted entries; optionally fails on the given entry.
+     */
+    static final class CollectingSink implements HistorySink {
+        final List<HistoryEntry> entries = Collections.synchronizedList(new ArrayList<>());
+        final String failOnUrl;
+        boolean closed = false;
+
+        CollectingSink() {
+            this(null);
+        }
+
+        CollectingSink(String failOnUrl) {
+            this.failOnUrl = failOnUrl;
+        }
+
+        @Override
+        public void accept(HistoryEntry entry) throws IOException {
+            if (entry.url().equals(failOnUrl)) {
+                throw new IOException("disk full");
+            }
+            entries.add(entry);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static String url(int i) {
+        return "https://www.crunchyroll.com/de/watch/G" + i + "/episode";
+    }
+
+    private static HistoryEntry entry(int i, String series) {
+        return new HistoryEntry(series, "Episode " + i, "S1", "E" + i, "2025-01-01", null, url(i));
+    }
+
+    private static CardSnapshot card(int i, String series) {
+        return new CardSnapshot(url(i), series, "Episode " + i, "S1 E" + i, null, "2025-01-01", null, null);
+    }
+
+    @Test
+    void keepsSubmissionOrderAcrossParseWorkers() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        List<String> expected = new ArrayList<>();
+        try (HistoryPipeline pipeline = new HistoryPipeline(sink, 4, 8)) {
+            for (int i = 0; i < 2_000; i++) {
+                pipeline.submit(card(i, "Series " + i));
+                expected.add(url(i));
+            }
+            pipeline.finish();
+            assertEquals(2_000, pipeline.uniqueCount());
+        }
+        assertEquals(expected, sink.entries.stream().map(HistoryEntry::url).toList());
+        assertTrue(sink.closed);
+    }
+
+    @Test
+    void keepsFirstCopyOfDuplicatesAndSkipsEmptyCards() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        CardSnapshot empty = new CardSnapshot(null, " ", null, null, null, null, null, "");
+        try (HistoryPipeline pipeline = new HistoryPipeline(sink, 2, 4)) {
+            pipeline.submit(card(1, "First"));
+            pipeline.submit(empty);
+            pipeline.submit(entry(2, "Second"));
+            pipeline.submit(card(1, "Later copy"));
+            pipeline.submit(empty);
+            pipeline.submit(entry(2, "Later copy"));
+            pipeline.submit(card(3, "Third"));
+        }
+        assertEquals(List.of("First", "Second", "Third"), sink.entries.stream().map(HistoryEntry::seriesTitle).toList());
+    }
+
+    @Test
+    void concurrentSubmitsLoseNothing() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        CollectingSink sink = new CollectingSink();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (HistoryPipeline pipeline = new HistoryPipeline(sink, threads * perThread, 4)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + perThread; i++) {
+                        pipeline.submit(entry(i, "Thread " + offset));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            pipeline.finish();
+            assertEquals(threads * perThread, pipeline.uniqueCount());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread, new HashSet<>(sink.entries).size());
+        // Entries from one thread keep that thread's order
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (HistoryEntry entry : sink.entries) {
+            int i = Integer.parseInt(entry.episodeNumber().substring(1));
+            int t = i / perThread;
+            assertTrue(i > last[t], "entry " + i + " after " + last[t]);
+            last[t] = i;
+        }
+    }
+
+    @Test
+    void sinkFailureSurfacesFromFinishAndSinkIsClosed() throws Exception {
+        CollectingSink sink = new CollectingSink(url(2));
+        HistoryPipeline pipeline = new HistoryPipeline(sink, 4, 2);
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(entry(i, "Series"));
+        }
+        IOException failure = assertThrows(IOException.class, pipeline::finish);
+        assertEquals("disk full", failure.getMessage());
+        assertEquals(2, sink.entries.size(), "nothing is written after the failure");
+        assertTrue(sink.closed);
+        pipeline.close();
+    }
+
+    @Test
+    void finishAfterInterruptStillDrainsAndRestoresTheFlag() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        HistoryPipeline pipeline = new HistoryPipeline(sink, 4, 2);
+        for (int i = 0; i < 100; i++) {
+            pipeline.submit(entry(i, "Series"));
+        }
+        Thread.currentThread().interrupt();
+        try {
+            pipeline.finish();
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(100, sink.entries.size());
+        assertEquals(url(0), sink.entries.get(0).url());
+    }
+}
@@ -0,0 +1,47 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NetworkHistoryCaptureTest {
+    private final NetworkHistoryCapture capture = new NetworkHistoryCapture(null, NetworkHistoryCapture.DEFAULT_URL_PATTERN);
+
+    private static final String BODY = """
+            {"total": 2, "data": [
+              {"id": "GR3VWXP96", "date_played": "2025-12-06T21:14:03Z", "playhead": 852, "fully_watched": false,
+               "panel": {"id": "GR3VWXP96", "title": "Shibuya Incident", "slug_title": "episode-5",
+                 "episode_metadata": {"series_title": "Jujutsu Kaisen", "season_title": "S2", "episode": "5",
+                   "duration_ms": 1420000}}},
+              {"id": "G4VUQ1ZKW", "fully_watched": true,
+               "panel": {"id": "G4VUQ1ZKW", "title": "Reunion",
+                 "episode_metadata": {"series_title": "Oshi no Ko", "season_number": 2, "episode_number": 3}}}
+            ]}
+            """;
+
+    @Test
+    void watchBaseKeepsTheLocalePrefix() {
+        assertEquals("https://www.crunchyroll.com/de", NetworkHistoryCapture.watchBase("https://www.crunchyroll.com/de/history"));
+        assertEquals("https://www.crunchyroll.com", NetworkHistoryCapture.watchBase("https://www.crunchyroll.com/history?tab=1"));
+        assertEquals("http://127.0.0.1:8080", NetworkHistoryCapture.watchBase("http://127.0.0.1:8080/history"));
+        assertEquals("https://www.crunchyroll.com", NetworkHistoryCapture.watchBase("https://www.crunchyroll.com/de/watch/G1"));
+    }
+
+    @Test
+    void decodesEntriesWithTheSameUrlsAsTheHistoryPageLinks() {
+        List<HistoryEntry> entries = capture.decode(BODY, NetworkHistoryCapture.watchBase("https://www.crunchyroll.com/de/history"));
+
+        assertEquals(List.of(
+                new HistoryEntry("Jujutsu Kaisen", "Shibuya Incident", "S2", "E5", "2025-12-06", "60%",
+                        "https://www.crunchyroll.com/de/watch/GR3VWXP96/episode-5"),
+                new HistoryEntry("Oshi no Ko", "Reunion", "S2", "E3", null, "100%",
+                        "https://www.crunchyroll.com/de/watch/G4VUQ1ZKW")), entries);
+    }
+
+    @Test
+    void ignoresPayloadsWithoutData() {
+        assertEquals(List.of(), capture.decode("{\"total\": 0}", "https://www.crunchyroll.com"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScrapeBudgetTest {
+    private static final Duration ITERATION = Duration.ofSeconds(30);
+
+    private static ScrapeBudget budget(long secondsLeft, long reserveSeconds) {
+        return new ScrapeBudget(Instant.now().plusSeconds(secondsLeft), Duration.ofSeconds(reserveSeconds),
+                ITERATION, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void budgetShorterThanOneIterationStillScrapes() {
+        ScrapeBudget budget = budget(20, 5);
+        assertFalse(budget.exhausted());
+        long left = budget.remaining().toSeconds();
+        assertTrue(left > 10 && left <= 15, left + " s left");
+    }
+
+    @Test
+    void exhaustedOnceOnlyTheReserveIsLeft() {
+        assertTrue(budget(5, 5).exhausted());
+        assertTrue(budget(-10, 5).exhausted());
+        assertEquals(Duration.ZERO, budget(3, 5).remaining());
+    }
+
+    @Test
+    void iterationEndsWithTheBudget() throws InterruptedException {
+        ScrapeBudget budget = new ScrapeBudget(Instant.now().plusMillis(250), Duration.ZERO, ITERATION, null);
+        budget.startIteration();
+        assertFalse(budget.iterationExpired());
+        Thread.sleep(300);
+        assertTrue(budget.iterationExpired());
+    }
+
+    @Test
+    void capShortensWaitsToTheRemainingBudget() {
+        assertTrue(budget(65, 5).cap(Duration.ofSeconds(300)).compareTo(Duration.ofSeconds(60)) <= 0);
+        assertEquals(Duration.ofSeconds(10), budget(65, 5).cap(Duration.ofSeconds(10)));
+        assertEquals(Duration.ZERO, budget(2, 5).cap(Duration.ofSeconds(600)));
+
+        ScrapeBudget unlimited = new ScrapeBudget(null, Duration.ZERO, null, null);
+        assertFalse(unlimited.exhausted());
+        assertEquals(Duration.ofSeconds(600), unlimited.cap(Duration.ofSeconds(600)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScrapeMetricsTest {
+    private static final Pattern SAMPLE = Pattern.compile("[a-z_]+(\\{command=\"[^\"]*\"})? -?[0-9.E]+");
+
+    @Test
+    void everySampleHasHelpAndTypeLines() {
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        metrics.scrapeStarted();
+        metrics.iteration(42, 0);
+        String text = metrics.render();
+
+        for (String name : List.of("crunchy_entries_found", "crunchy_entries_per_second", "crunchy_no_progress_iterations",
+                "crunchy_last_progress_timestamp_seconds", "crunchy_iteration_seconds", "crunchy_browser_dom_nodes",
+                "crunchy_browser_js_heap_bytes", "jvm_memory_heap_used_bytes")) {
+            assertTrue(text.contains("# HELP " + name + " "), name);
+            assertTrue(text.contains("# TYPE " + name + " gauge\n"), name);
+        }
+        assertTrue(text.contains("# TYPE crunchy_scroll_iterations_total counter\n"));
+        assertTrue(text.contains("\ncrunchy_scroll_iterations_total 1\n"), text);
+        assertTrue(text.contains("\ncrunchy_entries_found 42\n"), text);
+        assertTrue(text.contains("# TYPE crunchy_webdriver_command_seconds summary\n"));
+        assertTrue(text.contains("# TYPE crunchy_webdriver_command_errors_total counter\n"));
+
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("# HELP ") || line.startsWith("# TYPE ") || SAMPLE.matcher(line).matches(), line);
+        }
+    }
+
+    @Test
+    void instrumentedDriverCountsCommandsAndErrors() {
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        WebDriver driver = metrics.instrument(new StubWebDriver());
+        driver.getCurrentUrl();
+        driver.getCurrentUrl();
+        assertThrows(RuntimeException.class, () -> driver.findElement(By.id("missing")));
+        String text = metrics.render();
+
+        assertTrue(text.contains("crunchy_webdriver_command_seconds_count{command=\"getCurrentUrl\"} 2\n"), text);
+        assertTrue(text.contains("crunchy_webdriver_command_errors_total{command=\"getCurrentUrl\"} 0\n"), text);
+        assertTrue(text.contains("crunchy_webdriver_command_errors_total{command=\"findElement\"} 1\n"), text);
+    }
+
+    @Test
+    void labelValuesAreEscaped() {
+        assertEquals("a\\\\b\\\"c\\nd", ScrapeMetrics.escapeLabel("a\\b\"c\nd"));
+        assertEquals("findElement", ScrapeMetrics.escapeLabel("findElement"));
+    }
+
+    @Test
+    void serverExposesMetricsUntilClosed() throws Exception {
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri;
+        try (MetricsServer server = new MetricsServer(0, metrics)) {
+            uri = URI.create("http://127.0.0.1:" + server.port() + "/metrics");
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("text/plain; version=0.0.4; charset=utf-8", response.headers().firstValue("Content-Type").orElse(null));
+            assertTrue(response.body().contains("# TYPE crunchy_entries_found gauge"));
+            assertTrue(metrics.isServed());
+        }
+        IOException refused = assertThrows(IOException.class,
+                () -> client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString()));
+        assertTrue(refused instanceof ConnectException || refused.getCause() instanceof ConnectException, refused.toString());
+    }
+}
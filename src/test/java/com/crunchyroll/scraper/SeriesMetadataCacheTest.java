@@ -0,0 +1,95 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesMetadataCacheTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Knows every title except those starting with "Unknown" and records each batch it receives.
+     */
+    static final class RecordingSource implements SeriesMetadataSource {
+        final List<List<String>> batches = new ArrayList<>();
+
+        @Override
+        public Map<String, SeriesMetadata> fetch(Collection<String> seriesTitles) {
+            batches.add(List.copyOf(seriesTitles));
+            Map<String, SeriesMetadata> result = new HashMap<>();
+            for (String title : seriesTitles) {
+                if (!title.startsWith("Unknown")) {
+                    result.put(title, new SeriesMetadata("G" + title.length(), title, 24, 1440));
+                }
+            }
+            return result;
+        }
+
+        int titlesRequested() {
+            return batches.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    private SeriesMetadataCache cache(RecordingSource source, Duration ttl) {
+        return new SeriesMetadataCache(source, dir.resolve("cache.tsv"), ttl, 100, 2);
+    }
+
+    @Test
+    void deduplicatesAndBatchesLookups() throws IOException {
+        RecordingSource source = new RecordingSource();
+        try (SeriesMetadataCache cache = cache(source, Duration.ofDays(1))) {
+            Map<String, SeriesMetadata> result = cache.getAll(List.of("A", "Bb", "A", "Ccc", "Bb", " "));
+            assertEquals(3, result.size());
+            assertEquals(List.of(List.of("A", "Bb"), List.of("Ccc")), source.batches);
+
+            cache.getAll(List.of("a", "BB"));
+            assertEquals(3, source.titlesRequested(), "case-insensitive memory hits");
+        }
+    }
+
+    @Test
+    void unknownTitlesAreCachedOnDisk() throws IOException {
+        RecordingSource first = new RecordingSource();
+        try (SeriesMetadataCache cache = cache(first, Duration.ofDays(1))) {
+            Map<String, SeriesMetadata> result = cache.getAll(List.of("Known", "Unknown Show"));
+            assertTrue(result.containsKey("Known"));
+            assertFalse(result.containsKey("Unknown Show"));
+            cache.getAll(List.of("Unknown Show"));
+            assertEquals(2, first.titlesRequested());
+        }
+
+        RecordingSource second = new RecordingSource();
+        try (SeriesMetadataCache cache = cache(second, Duration.ofDays(1))) {
+            Map<String, SeriesMetadata> result = cache.getAll(List.of("Known", "Unknown Show"));
+            assertEquals(1, result.size());
+            assertEquals(new SeriesMetadata("G5", "Known", 24, 1440), result.get("Known"));
+            assertEquals(0, second.titlesRequested());
+        }
+    }
+
+    @Test
+    void expiredRecordsAreFetchedAgain() throws IOException {
+        try (SeriesMetadataCache cache = cache(new RecordingSource(), Duration.ofDays(1))) {
+            cache.getAll(List.of("Known", "Unknown Show"));
+        }
+
+        RecordingSource source = new RecordingSource();
+        try (SeriesMetadataCache cache = cache(source, Duration.ofSeconds(-1))) {
+            cache.getAll(List.of("Known", "Unknown Show"));
+        }
+        assertEquals(List.of(List.of("Known", "Unknown Show")), source.batches);
+    }
+}
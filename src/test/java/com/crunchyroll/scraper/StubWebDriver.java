@@ -0,0 +1,123 @@
+package com.crunchyroll.scraper;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Browser-less WebDriver for tests: records visited URLs and serves a fixed URL,
+ * page source and screenshot. No element is ever found and scripts return null.
+ * {@link #manage()} and {@link #navigate()} accept every call and do nothing.
+ */
+class StubWebDriver implements WebDriver, JavascriptExecutor, TakesScreenshot {
+    static final byte[] SCREENSHOT = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+
+    final List<String> visited = new ArrayList<>();
+    String currentUrl = "about:blank";
+    String pageSource = "<html><body></body></html>";
+    int screenshots = 0;
+    int pageSources = 0;
+
+    @SuppressWarnings("unchecked")
+    private static <T> T inert(Class<T> type) {
+        return (T) Proxy.newProxyInstance(StubWebDriver.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Class<?> result = method.getReturnType();
+                    if (result.isInterface()) {
+                        return result.isInstance(proxy) ? proxy : inert(result);
+                    }
+                    return result == boolean.class ? false : null;
+                });
+    }
+
+    @Override
+    public void get(String url) {
+        visited.add(url);
+        currentUrl = url;
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return currentUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        return "";
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return List.of();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        throw new NoSuchElementException("Stub driver has no elements: " + by);
+    }
+
+    @Override
+    public String getPageSource() {
+        pageSources++;
+        return pageSource;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void quit() {
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Set.of("main");
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return "main";
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        return inert(TargetLocator.class);
+    }
+
+    @Override
+    public Navigation navigate() {
+        return inert(Navigation.class);
+    }
+
+    @Override
+    public Options manage() {
+        return inert(Options.class);
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        return null;
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        return null;
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        screenshots++;
+        return target.convertFromBase64Png(Base64.getEncoder().encodeToString(SCREENSHOT));
+    }
+}
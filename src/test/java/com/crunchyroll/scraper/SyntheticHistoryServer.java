@@ -0,0 +1,357 @@
+package com.crunchyroll.scraper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the Crunchyroll history page, for offline end-to-end benchmarks.
+ * <p>
+ * Serves a deterministic synthetic history of any size with infinite-scroll loading,
+ * configurable API latency and markup variants that exercise the card selectors used
+ * by the scraper. The history API returns the same JSON shape as Crunchyroll's
+ * watch-history endpoint, so network capture mode can be benchmarked as well.
+ */
+public class SyntheticHistoryServer implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SyntheticHistoryServer.class);
+    public static final String HISTORY_API_PATH = "/content/v2/synthetic/watch-history";
+    public static final String SERIES_API_PATH = "/content/v2/synthetic/series";
+    private static final int EPISODES_PER_SEASON = 24;
+    private static final int SEASONS = 4;
+    private static final long EPISODE_DURATION_MS = 1_420_000L;
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2025, 12, 6, 22, 0);
+
+    private static final List<String> SERIES = List.of(
+            "My Hero Academia", "Jujutsu Kaisen", "Attack on Titan", "Demon Slayer: Kimetsu no Yaiba",
+            "One Piece", "Spy x Family", "Chainsaw Man", "Frieren: Beyond Journey's End",
+            "Solo Leveling", "Vinland Saga", "Mushoku Tensei: Jobless Reincarnation", "Dr. Stone",
+            "Re:ZERO -Starting Life in Another World-", "Mob Psycho 100", "Der Schwertkämpfer",
+            "Die Apothekerin", "Bocchi the Rock!", "Blue Lock", "Oshi no Ko", "Hell's Paradise"
+    );
+    private static final List<String> EPISODE_WORDS = List.of(
+            "Der Anfang", "The Final Act Begins", "Shibuya Incident", "Eine neue Reise", "Awakening",
+            "Das Versprechen", "Into the Storm", "Der letzte Kampf", "Reunion", "Ein stiller Tag"
+    );
+
+    /**
+     * Markup variants; each matches a different entry in the scraper's card selector list.
+     */
+    public enum Variant {
+        /** [data-t='playable-card'] cards with data-t field attributes. */
+        DATA_T,
+        /** .history-playable-card cards with class-based fields. */
+        CLASS,
+        /** Bare watch links whose text has to be parsed line by line. */
+        ANCHOR
+    }
+
+    private final HttpServer server;
+    private final int entries;
+    private final int pageSize;
+    private final long latencyMs;
+    private final Variant variant;
+
+    public SyntheticHistoryServer(int port, int entries, int pageSize, long latencyMs, Variant variant) throws IOException {
+        this.entries = entries;
+        this.pageSize = pageSize;
+        this.latencyMs = latencyMs;
+        this.variant = variant;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/history", this::handleHistoryPage);
+        server.createContext(HISTORY_API_PATH, this::handleHistoryApi);
+        server.createContext(SERIES_API_PATH, this::handleSeriesApi);
+        server.start();
+        LOG.info("Synthetic history site with {} entries ({} markup, {} ms latency) at {}",
+                entries, variant.name().toLowerCase(Locale.ROOT), latencyMs, baseUrl());
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int entries() {
+        return entries;
+    }
+
+    private void handleHistoryPage(HttpExchange exchange) throws IOException {
+        String html = PAGE_TEMPLATE
+                .replace("{{VARIANT}}", variant.name())
+                .replace("{{PAGE_SIZE}}", String.valueOf(pageSize))
+                .replace("{{API}}", HISTORY_API_PATH);
+        respond(exchange, "text/html; charset=utf-8", html);
+    }
+
+    private void handleHistoryApi(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange.getRequestURI());
+        int start = Math.max(0, parseInt(query.get("start"), 0));
+        int count = Math.max(0, parseInt(query.get("n"), pageSize));
+        int end = Math.min(entries, start + count);
+
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        StringBuilder json = new StringBuilder(256 * Math.max(1, end - start));
+        json.append("{\"total\":").append(entries).append(",\"data\":[");
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                json.append(',');
+            }
+            appendItem(json, i);
+        }
+        json.append("]}");
+        respond(exchange, "application/json", json.toString());
+    }
+
+    /**
+     * Series metadata stub for {@link HttpSeriesMetadataSource}: POST {"titles": [...]}.
+     */
+    private void handleSeriesApi(HttpExchange exchange) throws IOException {
+        Map<String, Object> request = new Json().toType(
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8),
+                Json.MAP_TYPE);
+        StringBuilder json = new StringBuilder("{\"data\":[");
+        boolean first = true;
+        if (request.get("titles") instanceof List<?> titles) {
+            for (Object title : titles) {
+                int index = SERIES.indexOf(String.valueOf(title));
+                if (index < 0) {
+                    continue;
+                }
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"series_id\":\"SSYN").append(index).append('"')
+                        .append(",\"series_title\":\"").append(escape(SERIES.get(index))).append('"')
+                        .append(",\"episode_count\":").append(EPISODES_PER_SEASON * SEASONS)
+                        .append(",\"episode_runtime_ms\":").append(EPISODE_DURATION_MS)
+                        .append('}');
+            }
+        }
+        json.append("]}");
+        respond(exchange, "application/json", json.toString());
+    }
+
+    /**
+     * Writes one watch-history item in the Crunchyroll API shape.
+     */
+    private static void appendItem(StringBuilder json, int index) {
+        int seriesIndex = (index * 7) % SERIES.size();
+        int season = 1 + (index / 97) % SEASONS;
+        int episode = 1 + (index % EPISODES_PER_SEASON);
+        String id = "GSYN" + Integer.toString(index, 36).toUpperCase(Locale.ROOT);
+        String title = EPISODE_WORDS.get((index * 3) % EPISODE_WORDS.size());
+        boolean fullyWatched = index % 3 != 0;
+        long durationMs = EPISODE_DURATION_MS;
+        long playhead = fullyWatched ? durationMs / 1000 : (index * 37L) % (durationMs / 1000);
+        String played = NEWEST.minusHours(index).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "Z";
+
+        json.append("{\"id\":\"").append(id).append('"')
+                .append(",\"date_played\":\"").append(played).append('"')
+                .append(",\"playhead\":").append(playhead)
+                .append(",\"fully_watched\":").append(fullyWatched)
+                .append(",\"panel\":{\"id\":\"").append(id).append('"')
+                .append(",\"title\":\"").append(escape(title)).append('"')
+                .append(",\"slug_title\":\"").append(slug(title)).append('"')
+                .append(",\"episode_metadata\":{")
+                .append("\"series_id\":\"SSYN").append(seriesIndex).append('"')
+                .append(",\"series_title\":\"").append(escape(SERIES.get(seriesIndex))).append('"')
+                .append(",\"season_title\":\"Season ").append(season).append('"')
+                .append(",\"season_number\":").append(season)
+                .append(",\"episode\":\"").append(episode).append('"')
+                .append(",\"episode_number\":").append(episode)
+                .append(",\"duration_ms\":").append(durationMs)
+                .append("}}}");
+    }
+
+    static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String slug(String title) {
+        return title.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+    }
+
+    static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value != null ? Integer.parseInt(value) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static final String PAGE_TEMPLATE = """
+            <!DOCTYPE html>
+            <html lang="de">
+            <head>
+            <meta charset="utf-8">
+            <title>Verlauf - Synthetic</title>
+            <style>
+              body { font-family: sans-serif; margin: 0 24px; }
+              .grid { display: grid; grid-template-columns: repeat(4, 1fr); gap: 16px; }
+              .grid > * { display: block; height: 200px; border: 1px solid #ddd; padding: 8px; overflow: hidden; }
+              .bar { height: 4px; background: #f47521; }
+            </style>
+            </head>
+            <body>
+            <h1>Verlauf</h1>
+            <div class="erc-history-collection" data-t="history-content"><div id="grid" class="grid"></div></div>
+            <script>
+            const VARIANT = '{{VARIANT}}';
+            const PAGE_SIZE = {{PAGE_SIZE}};
+            const grid = document.getElementById('grid');
+            let start = 0, total = Infinity, loading = false;
+
+            const esc = s => String(s).replace(/[&<>"']/g, c => ({'&':'&amp;','<':'&lt;','>':'&gt;','"':'&quot;',"'":'&#39;'}[c]));
+
+            function card(item) {
+              const p = item.panel, m = p.episode_metadata;
+              const href = '/watch/' + p.id + '/' + p.slug_title;
+              const info = 'S' + m.season_number + ' E' + m.episode;
+              const progress = item.fully_watched ? 100 : Math.min(100, Math.floor(item.playhead * 100000 / m.duration_ms));
+              const date = item.date_played.substring(0, 10);
+              if (VARIANT === 'DATA_T') {
+                return '<div data-t="playable-card"><a href="' + href + '">'
+                  + '<h5 data-t="series-title">' + esc(m.series_title) + '</h5>'
+                  + '<h6 data-t="episode-title">' + esc(p.title) + '</h6></a>'
+                  + '<span data-t="episode-info">' + info + '</span>'
+                  + '<div data-t="progress" class="bar" style="width: ' + progress + '%"></div>'
+                  + '<time data-t="watched-date" datetime="' + item.date_played + '">' + date + '</time></div>';
+              }
+              if (VARIANT === 'CLASS') {
+                return '<article class="history-playable-card"><a class="card-link" href="' + href + '">'
+                  + '<div class="series-title">' + esc(m.series_title) + '</div>'
+                  + '<div class="episode-title">' + esc(p.title) + '</div></a>'
+                  + '<div class="episode-info">' + info + '</div>'
+                  + '<div class="progress-bar bar" style="width: ' + progress + '%"></div>'
+                  + '<span class="watched-date">' + date + '</span></article>';
+              }
+              return '<a class="plain" href="' + href + '">' + esc(m.series_title) + '<br>'
+                + esc(p.title) + '<br>' + info + '</a>';
+            }
+
+            async function loadMore() {
+              if (loading || start >= total) return;
+              loading = true;
+              try {
+                const response = await fetch('{{API}}?start=' + start + '&n=' + PAGE_SIZE);
+                const page = await response.json();
+                total = page.total;
+                grid.insertAdjacentHTML('beforeend', page.data.map(card).join(''));
+                start += page.data.length;
+              } finally {
+                loading = false;
+              }
+              check();
+            }
+
+            function check() {
+              if (window.innerHeight + window.scrollY >= document.body.scrollHeight - 1200) loadMore();
+            }
+
+            window.addEventListener('scroll', check);
+            loadMore();
+            </script>
+            </body>
+            </html>
+            """;
+
+    /**
+     * Starts the synthetic site until the process is stopped.
+     * Options: --port=N --entries=N --page-size=N --latency-ms=N --variant=data-t|class|anchor
+     */
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        int entries = 1000;
+        int pageSize = 50;
+        long latencyMs = 250;
+        Variant variant = Variant.DATA_T;
+
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--entries=")) {
+                entries = Integer.parseInt(arg.substring("--entries=".length()).replace("k", "000"));
+            } else if (arg.startsWith("--page-size=")) {
+                pageSize = Integer.parseInt(arg.substring("--page-size=".length()));
+            } else if (arg.startsWith("--latency-ms=")) {
+                latencyMs = Long.parseLong(arg.substring("--latency-ms=".length()));
+            } else if (arg.startsWith("--variant=")) {
+                variant = Variant.valueOf(arg.substring("--variant=".length()).replace('-', '_').toUpperCase(Locale.ROOT));
+            }
+        }
+
+        SyntheticHistoryServer server = new SyntheticHistoryServer(port, entries, pageSize, latencyMs, variant);
+        System.out.println("History page: " + server.baseUrl() + "/history");
+        System.out.println("Run the scraper with: --base-url=" + server.baseUrl());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,74 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticHistoryServerTest {
+    private static SyntheticHistoryServer server;
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private final NetworkHistoryCapture capture = new NetworkHistoryCapture(null, NetworkHistoryCapture.DEFAULT_URL_PATTERN);
+
+    @BeforeAll
+    static void start() throws IOException {
+        server = new SyntheticHistoryServer(0, 120, 50, 0, SyntheticHistoryServer.Variant.DATA_T);
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private String get(String path) throws Exception {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(server.baseUrl() + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    @Test
+    void historyApiPagesDecodeIntoDistinctEntries() throws Exception {
+        Set<String> urls = new HashSet<>();
+        int total = 0;
+        for (int start = 0; start < 150; start += 50) {
+            List<HistoryEntry> page = capture.decode(
+                    get(SyntheticHistoryServer.HISTORY_API_PATH + "?start=" + start + "&n=50"), server.baseUrl());
+            for (HistoryEntry entry : page) {
+                assertNotNull(entry.seriesTitle());
+                assertNotNull(entry.episodeTitle());
+                assertTrue(entry.url().startsWith(server.baseUrl() + "/"), entry.url());
+                urls.add(entry.url());
+            }
+            total += page.size();
+        }
+        assertEquals(120, total, "last page is cut off at the configured size");
+        assertEquals(120, urls.size());
+    }
+
+    @Test
+    void historyApiIsDeterministic() throws Exception {
+        String path = SyntheticHistoryServer.HISTORY_API_PATH + "?start=10&n=5";
+        assertEquals(get(path), get(path));
+    }
+
+    @Test
+    void historyPageUsesRequestedVariant() throws Exception {
+        String html = get("/history");
+        assertTrue(html.contains("DATA_T"));
+        assertTrue(html.contains(SyntheticHistoryServer.HISTORY_API_PATH));
+    }
+}
@@ -0,0 +1,93 @@
+package com.crunchyroll.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TitleIndexTest {
+    @TempDir
+    Path dir;
+
+    private static HistoryEntry entry(String series, String episode, int i) {
+        return new HistoryEntry(series, episode, "S1", "E" + i, "2025-01-01", null,
+                "https://www.crunchyroll.com/de/watch/G" + i + "/episode");
+    }
+
+    private static List<HistoryEntry> sample() {
+        return List.of(
+                entry("Die Tagebücher der Apothekerin", "Maomao", 1),
+                entry("Die Tagebücher der Apothekerin", "Das Gift", 2),
+                entry("Der Schwertkämpfer", "Das Mädchen im Turm", 3),
+                entry("Frieren: Beyond Journey's End", "Ein stiller Tag", 4),
+                entry("Attack on Titan", "Shingeki", 5));
+    }
+
+    @Test
+    void normalizeFoldsUmlautsAccentsAndPunctuation() {
+        assertEquals("madchen", TitleIndex.normalize("Mädchen"));
+        assertEquals("madchen", TitleIndex.normalize("Maedchen"));
+        assertEquals("strasse", TitleIndex.normalize("Straße"));
+        assertEquals("pokemon re zero", TitleIndex.normalize("Pokémon — Re:ZERO!"));
+    }
+
+    @Test
+    void ranksBestMatchFirstAcrossSpellings() {
+        TitleIndex index = TitleIndex.build(sample());
+        List<TitleIndex.Match> matches = index.search("tagebucher apotekerin", 5);
+        TitleIndex.Match best = matches.get(0);
+        assertEquals("Die Tagebücher der Apothekerin", best.title());
+        assertEquals(TitleIndex.Field.SERIES, best.field());
+        assertEquals(2, best.entries().size());
+
+        assertEquals("Das Mädchen im Turm", index.search("maedchen im turm", 1).get(0).title());
+        assertEquals(1.0, index.search("Attack on Titan", 1).get(0).score(), 1e-9);
+    }
+
+    @Test
+    void scoresAreDescendingAndRespectLimitAndMinimum() {
+        TitleIndex index = TitleIndex.build(sample());
+        List<TitleIndex.Match> matches = index.search("der", 10, 0.0);
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i - 1).score() >= matches.get(i).score());
+        }
+        assertEquals(1, index.search("der", 1, 0.0).size());
+        assertTrue(index.search("xyzzy qwerty", 10).isEmpty());
+    }
+
+    @Test
+    void saveAndLoadRoundTripsLargePostingGaps() throws IOException {
+        // Enough titles that posting gaps and counts need multi-byte varints
+        List<HistoryEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            entries.add(entry(i % 20_000 == 0 ? "Solo Leveling" : "Serie " + i, "Folge " + i, i));
+        }
+        TitleIndex index = TitleIndex.build(entries);
+        Path file = dir.resolve("index.bin");
+        index.save(file);
+        TitleIndex loaded = TitleIndex.load(file);
+
+        assertEquals(index.entryCount(), loaded.entryCount());
+        assertEquals(index.titleCount(), loaded.titleCount());
+        for (String query : List.of("solo leveling", "serie 39999", "folge 12345", "serie 128")) {
+            assertEquals(index.search(query, 5), loaded.search(query, 5), query);
+        }
+        TitleIndex.Match solo = loaded.search("solo leveling", 1).get(0);
+        assertEquals(List.of(entries.get(0), entries.get(20_000)), solo.entries());
+    }
+
+    @Test
+    void loadRejectsForeignFiles() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 0, 0, 0, 1});
+        assertThrows(IOException.class, () -> TitleIndex.load(file));
+    }
+}